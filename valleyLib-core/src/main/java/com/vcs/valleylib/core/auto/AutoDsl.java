@@ -3,19 +3,26 @@ package com.vcs.valleylib.core.auto;
 import androidx.annotation.NonNull;
 
 import com.vcs.valleylib.core.command.Command;
+import com.vcs.valleylib.core.command.CompositeCommand;
+import com.vcs.valleylib.core.command.DeferredCommand;
 import com.vcs.valleylib.core.command.InstantCommand;
 import com.vcs.valleylib.core.command.WaitCommand;
+import com.vcs.valleylib.core.command.decorators.CommandGroups;
 import com.vcs.valleylib.core.command.decorators.DeadlineCommand;
 import com.vcs.valleylib.core.command.decorators.ParallelCommandGroup;
 import com.vcs.valleylib.core.command.decorators.RaceCommand;
 import com.vcs.valleylib.core.command.decorators.SequentialCommandGroup;
+import com.vcs.valleylib.core.subsystem.Subsystem;
 
 import org.jetbrains.annotations.Contract;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
 import java.util.function.BooleanSupplier;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * Small autonomous builder DSL on top of command composition.
@@ -34,6 +41,8 @@ public final class AutoDsl {
     public static final class AutoBuilder {
 
         private final List<Command> steps = new ArrayList<>();
+        private int chainLimit;
+        private double chainBudgetSeconds;
 
         public AutoBuilder command(Command command) {
             steps.add(command);
@@ -90,6 +99,28 @@ public final class AutoDsl {
             return this;
         }
 
+        /**
+         * Adds a step whose command is built only when the step starts, so
+         * branches that are never reached are never constructed.
+         *
+         * @param requirements subsystems the built command may require
+         */
+        public AutoBuilder deferred(Supplier<Command> supplier, Subsystem... requirements) {
+            steps.add(new DeferredCommand(supplier, false, Set.copyOf(Arrays.asList(requirements))));
+            return this;
+        }
+
+        /**
+         * Like {@link #either(BooleanSupplier, Command, Command)}, but builds only
+         * the branch the condition selects, when the step starts.
+         *
+         * @param requirements subsystems either branch may require
+         */
+        public AutoBuilder eitherDeferred(BooleanSupplier condition, Supplier<Command> onTrue,
+                                          Supplier<Command> onFalse, Subsystem... requirements) {
+            return deferred(() -> condition.getAsBoolean() ? onTrue.get() : onFalse.get(), requirements);
+        }
+
         /**
          * Compatibility alias for either(...).
          */
@@ -97,6 +128,18 @@ public final class AutoDsl {
             return either(condition, onTrue, onFalse);
         }
 
+        /**
+         * Runs steps that finish instantly back to back in one cycle, up to
+         * {@code maxChained} extra steps or {@code budgetSeconds} per cycle.
+         *
+         * @see SequentialCommandGroup#chainThrough(int, double)
+         */
+        public AutoBuilder chainThrough(int maxChained, double budgetSeconds) {
+            this.chainLimit = maxChained;
+            this.chainBudgetSeconds = budgetSeconds;
+            return this;
+        }
+
         public AutoBuilder parallel(Command... commands) {
             steps.add(new ParallelCommandGroup(commands));
             return this;
@@ -115,15 +158,18 @@ public final class AutoDsl {
         @NonNull
         @Contract(" -> new")
         public Command build() {
-            return new SequentialCommandGroup(steps.toArray(new Command[0]));
+            return new SequentialCommandGroup(steps.toArray(new Command[0]))
+                    .chainThrough(chainLimit, chainBudgetSeconds);
         }
     }
 
-    private static class ConditionalCommand implements Command {
+    private static class ConditionalCommand implements CompositeCommand {
 
         private final BooleanSupplier condition;
         private final Command onTrue;
         private final Command onFalse;
+        private final Set<Subsystem> requirements;
+        private final Set<Subsystem> sharedRequirements;
 
         private Command active;
 
@@ -131,6 +177,9 @@ public final class AutoDsl {
             this.condition = condition;
             this.onTrue = onTrue;
             this.onFalse = onFalse;
+            this.requirements = CommandGroups.unionRequirements(onTrue, onFalse);
+            this.sharedRequirements = CommandGroups.unionSharedRequirements(
+                    new Command[] {onTrue, onFalse}, requirements);
         }
 
         @Override
@@ -154,13 +203,41 @@ public final class AutoDsl {
             return active.isFinished();
         }
 
+        @Override
+        public long getWakeTimeNanos() {
+            return active.getWakeTimeNanos();
+        }
+
+        @Override
+        public int getChildCount() {
+            return 2;
+        }
+
+        @Override
+        public Command getChild(int index) {
+            return index == 0 ? onTrue : onFalse;
+        }
+
+        @Override
+        public boolean isChildRunning(int index) {
+            return getChild(index) == active;
+        }
+
+        @Override
+        public long getChildrenVersion() {
+            return active instanceof CompositeCommand ? ((CompositeCommand) active).getChildrenVersion() : 0;
+        }
+
         @NonNull
         @Override
-        public java.util.Set<com.vcs.valleylib.core.subsystem.Subsystem> getRequirements() {
-            java.util.Set<com.vcs.valleylib.core.subsystem.Subsystem> requirements = new java.util.LinkedHashSet<>();
-            requirements.addAll(onTrue.getRequirements());
-            requirements.addAll(onFalse.getRequirements());
+        public Set<Subsystem> getRequirements() {
             return requirements;
         }
+
+        @NonNull
+        @Override
+        public Set<Subsystem> getSharedRequirements() {
+            return sharedRequirements;
+        }
     }
 }
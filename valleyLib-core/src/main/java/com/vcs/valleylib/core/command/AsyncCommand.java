@@ -0,0 +1,187 @@
+package com.vcs.valleylib.core.command;
+
+import com.vcs.valleylib.core.subsystem.Subsystem;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Runs a computation off the loop thread, then hands its result to a
+ * continuation command.
+ *
+ * Use this for heavy one-off work that would otherwise stall execute():
+ * building a path from the current pose, solving an IK target, scanning a
+ * camera frame.
+ *
+ * Lifecycle:
+ *  - initialize(): submits the computation to the executor
+ *  - execute(): once the result is ready, builds and initializes the
+ *    continuation, then executes it every cycle
+ *  - end(): cancels the computation if it is still running, otherwise
+ *    ends the continuation
+ *
+ * If the computation throws, the command finishes without building the
+ * continuation and {@link #getError()} returns the exception.
+ *
+ * The continuation is unknown until the result arrives, so declare the
+ * subsystems it will use as this command's requirements up front.
+ *
+ * @param <T> result type of the computation
+ */
+public class AsyncCommand<T> extends BaseCommand {
+
+    private final Callable<T> computation;
+    private final Function<? super T, ? extends Command> continuation;
+    private final ExecutorService executor;
+    private final Set<Subsystem> requirements;
+
+    private Future<T> future;
+    private T result;
+    private Command next;
+    private boolean resultReady;
+    private Throwable error;
+
+    /**
+     * @param computation work to run on the shared background executor
+     * @param continuation builds the command to run with the result, or null to finish with the result
+     * @param requirements subsystems used by the continuation
+     */
+    public AsyncCommand(Callable<T> computation,
+                        Function<? super T, ? extends Command> continuation,
+                        Subsystem... requirements) {
+        this(computation, continuation, SharedExecutor.INSTANCE, requirements);
+    }
+
+    /**
+     * @param computation work to run on the given executor
+     * @param continuation builds the command to run with the result, or null to finish with the result
+     * @param executor executor that runs the computation
+     * @param requirements subsystems used by the continuation
+     */
+    public AsyncCommand(Callable<T> computation,
+                        Function<? super T, ? extends Command> continuation,
+                        ExecutorService executor,
+                        Subsystem... requirements) {
+        this.computation = computation;
+        this.continuation = continuation;
+        this.executor = executor;
+        this.requirements = Set.copyOf(Arrays.asList(requirements));
+    }
+
+    @Override
+    protected void onInitialize() {
+        result = null;
+        next = null;
+        resultReady = false;
+        error = null;
+        future = executor.submit(computation);
+    }
+
+    @Override
+    protected void onExecute() {
+        if (!resultReady) {
+            if (error != null || !future.isDone()) {
+                return;
+            }
+            if (!takeResult()) {
+                return;
+            }
+            resultReady = true;
+            if (continuation != null) {
+                next = continuation.apply(result);
+                if (next != null) {
+                    next.initialize();
+                }
+            }
+        }
+
+        if (next != null) {
+            next.execute();
+        }
+    }
+
+    @Override
+    protected boolean onIsFinished() {
+        return error != null || resultReady && (next == null || next.isFinished());
+    }
+
+    @Override
+    protected void onEnd(boolean interrupted) {
+        if (!resultReady) {
+            if (future != null) {
+                future.cancel(true);
+            }
+        } else if (next != null) {
+            next.end(interrupted);
+        }
+    }
+
+    @Override
+    public Set<Subsystem> getRequirements() {
+        return requirements;
+    }
+
+    /**
+     * @return true once the computation has completed and its result was picked up
+     */
+    public boolean hasResult() {
+        return resultReady;
+    }
+
+    /**
+     * @return the computation result, or null before it is ready
+     */
+    public T getResult() {
+        return result;
+    }
+
+    /**
+     * @return the exception the computation failed with, or null if it has not failed
+     */
+    public Throwable getError() {
+        return error;
+    }
+
+    /**
+     * Reads the finished computation into {@link #result}, or into
+     * {@link #error} if it failed.
+     *
+     * @return true when a result was read
+     */
+    private boolean takeResult() {
+        try {
+            result = future.get();
+            return true;
+        } catch (ExecutionException e) {
+            error = e.getCause();
+        } catch (CancellationException e) {
+            error = e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            error = e;
+        }
+        return false;
+    }
+
+    /**
+     * Lazily created daemon pool shared by async commands without their own executor.
+     */
+    private static final class SharedExecutor {
+
+        private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+        static final ExecutorService INSTANCE = Executors.newFixedThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "valleylib-async-" + THREAD_COUNT.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
@@ -2,7 +2,6 @@ package com.vcs.valleylib.core.command;
 
 import com.vcs.valleylib.core.subsystem.Subsystem;
 
-import java.util.HashSet;
 import java.util.Set;
 
 public abstract class BaseCommand implements Command {
@@ -60,6 +59,6 @@ public abstract class BaseCommand implements Command {
 
     @Override
     public Set<Subsystem> getRequirements() {
-        return new HashSet<>();
+        return Set.of();
     }
 }
\ No newline at end of file
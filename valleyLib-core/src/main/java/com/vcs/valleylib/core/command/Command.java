@@ -2,17 +2,13 @@ package com.vcs.valleylib.core.command;
 
 import androidx.annotation.NonNull;
 
-import com.vcs.valleylib.core.command.decorators.BeforeStartingCommand;
+import com.vcs.valleylib.core.command.decorators.CommandGroups;
 import com.vcs.valleylib.core.command.decorators.DeadlineCommand;
-import com.vcs.valleylib.core.command.decorators.FinallyCommand;
-import com.vcs.valleylib.core.command.decorators.OnlyWhileCommand;
-import com.vcs.valleylib.core.command.decorators.ParallelCommandGroup;
-import com.vcs.valleylib.core.command.decorators.RaceCommand;
+import com.vcs.valleylib.core.command.decorators.DecoratedCommand;
 import com.vcs.valleylib.core.command.decorators.RepeatCommand;
-import com.vcs.valleylib.core.command.decorators.SequentialCommandGroup;
-import com.vcs.valleylib.core.command.decorators.TimeoutCommand;
 import com.vcs.valleylib.core.command.decorators.UnlessCommand;
-import com.vcs.valleylib.core.command.decorators.UntilCommand;
+import com.vcs.valleylib.core.scheduler.ExecutionRate;
+import com.vcs.valleylib.core.scheduler.Priority;
 import com.vcs.valleylib.core.subsystem.Subsystem;
 
 import java.util.Set;
@@ -33,6 +29,11 @@ import java.util.function.BooleanSupplier;
  */
 public interface Command {
 
+    /**
+     * Wake time meaning the command must run every cycle.
+     */
+    long NO_WAKE_TIME = Long.MIN_VALUE;
+
     /**
      * Called once when the command is first scheduled.
      * Use this to reset timers, sensors, or internal state.
@@ -67,22 +68,87 @@ public interface Command {
      * If another command is scheduled that requires the same subsystem,
      * this command will be interrupted.
      *
+     * The returned set must not change afterwards. The scheduler caches the
+     * mask it builds from a set by the set's identity, so adding or removing
+     * subsystems in a set it has already seen is not noticed. Return an
+     * unmodifiable set, such as one from {@link Set#of}, and return a new set
+     * when the requirements change.
+     *
      * @return set of required subsystems
      */
     default Set<Subsystem> getRequirements() {
         return Set.of();
     }
 
+    /**
+     * Declares subsystems this command only reads, such as a pose used for
+     * aiming or telemetry.
+     *
+     * Shared requirements never conflict: any number of commands can read a
+     * subsystem while another command controls it, and scheduling a reader
+     * neither interrupts nor is interrupted by the command that requires the
+     * subsystem exclusively. A subsystem listed in both sets is exclusive.
+     *
+     * @return set of subsystems read but not controlled
+     */
+    default Set<Subsystem> getSharedRequirements() {
+        return Set.of();
+    }
+
+    /**
+     * Declares the execution lane this command runs in when the scheduler
+     * has a cycle budget.
+     *
+     * @return {@link Priority#CRITICAL} unless overridden
+     */
+    default Priority getPriority() {
+        return Priority.CRITICAL;
+    }
+
+    default Command withPriority(Priority priority) {
+        return DecoratedCommand.of(this).withPriority(priority);
+    }
+
+    /**
+     * Declares how often the scheduler calls {@link #execute()} and
+     * {@link #isFinished()} while this command is scheduled.
+     *
+     * @return {@link ExecutionRate#EVERY_CYCLE} unless overridden
+     */
+    default ExecutionRate getExecutionRate() {
+        return ExecutionRate.EVERY_CYCLE;
+    }
+
+    /**
+     * Declares the loop clock time, in nanoseconds, before which calling
+     * {@link #execute()} and {@link #isFinished()} would have no effect.
+     *
+     * The scheduler asks after every execute. A command that returns a time in
+     * the future is parked and not called again until that time; it may be
+     * called earlier, but never skipped past it. Commands waiting on a condition
+     * can return the next time they want to poll it.
+     *
+     * @return wake time on the {@link com.vcs.valleylib.core.time.LoopClock}
+     *         timeline, or {@link #NO_WAKE_TIME} to run every cycle
+     */
+    default long getWakeTimeNanos() {
+        return NO_WAKE_TIME;
+    }
+
+    default Command withRate(ExecutionRate rate) {
+        return DecoratedCommand.of(this).withRate(rate);
+    }
+
     default Command withTimeout(double seconds) {
-        return new TimeoutCommand(this, (long) (seconds * 1000));
+        return DecoratedCommand.of(this).withTimeout(seconds);
     }
 
     default Command until(BooleanSupplier condition) {
-        return new UntilCommand(this, condition);
+        return DecoratedCommand.of(this).until(condition);
     }
 
     default Command onlyWhile(BooleanSupplier condition) {
-        return new OnlyWhileCommand(this, condition);
+        return DecoratedCommand.of(this).onlyWhile(condition);
     }
 
     default Command unless(BooleanSupplier condition) {
@@ -90,11 +156,11 @@ public interface Command {
     }
 
     default Command beforeStarting(Runnable action) {
-        return new BeforeStartingCommand(this, action);
+        return DecoratedCommand.of(this).beforeStarting(action);
     }
 
     default Command finallyDo(Runnable action) {
-        return new FinallyCommand(this, action);
+        return DecoratedCommand.of(this).finallyDo(action);
     }
 
     default Command repeatedly() {
@@ -105,14 +171,14 @@ public interface Command {
         Command[] all = new Command[others.length + 1];
         all[0] = this;
         System.arraycopy(others, 0, all, 1, others.length);
-        return new ParallelCommandGroup(all);
+        return CommandGroups.parallel(all);
     }
 
     default Command raceWith(@NonNull Command... others) {
         Command[] all = new Command[others.length + 1];
         all[0] = this;
         System.arraycopy(others, 0, all, 1, others.length);
-        return new RaceCommand(all);
+        return CommandGroups.race(all);
     }
 
     default Command deadlineWith(Command... others) {
@@ -127,6 +193,6 @@ public interface Command {
         Command[] all = new Command[nextCommands.length + 1];
         all[0] = this;
         System.arraycopy(nextCommands, 0, all, 1, nextCommands.length);
-        return new SequentialCommandGroup(all);
+        return CommandGroups.sequence(all);
     }
 }
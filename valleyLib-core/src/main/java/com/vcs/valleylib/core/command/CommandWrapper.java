@@ -1,11 +1,12 @@
 package com.vcs.valleylib.core.command;
 
+import com.vcs.valleylib.core.scheduler.ExecutionRate;
+import com.vcs.valleylib.core.scheduler.Priority;
 import com.vcs.valleylib.core.subsystem.Subsystem;
 
-import java.util.HashSet;
 import java.util.Set;
 
-public abstract class CommandWrapper extends BaseCommand {
+public abstract class CommandWrapper extends BaseCommand implements CompositeCommand {
 
     protected final Command inner;
 
@@ -28,8 +29,63 @@ public abstract class CommandWrapper extends BaseCommand {
         inner.end(interrupted);
     }
 
+    /**
+     * Finishes when the wrapped command finishes. Wrappers that restart the
+     * wrapped command or outlive it, such as
+     * {@link com.vcs.valleylib.core.command.decorators.RepeatCommand}, override this.
+     */
+    @Override
+    protected boolean onIsFinished() {
+        return inner.isFinished();
+    }
+
     @Override
     public Set<Subsystem> getRequirements() {
-        return new HashSet<>(inner.getRequirements());
+        return inner.getRequirements();
+    }
+
+    @Override
+    public Set<Subsystem> getSharedRequirements() {
+        return inner.getSharedRequirements();
+    }
+
+    @Override
+    public Priority getPriority() {
+        return inner.getPriority();
+    }
+
+    @Override
+    public ExecutionRate getExecutionRate() {
+        return inner.getExecutionRate();
+    }
+
+    /**
+     * Runs every cycle by default, because a subclass may check its own condition in
+     * {@link #onIsFinished()} or {@link #onExecute()} that parking would skip. Wrappers that
+     * add no per-cycle logic override this to return {@code inner.getWakeTimeNanos()}.
+     */
+    @Override
+    public long getWakeTimeNanos() {
+        return NO_WAKE_TIME;
+    }
+
+    @Override
+    public int getChildCount() {
+        return 1;
+    }
+
+    @Override
+    public Command getChild(int index) {
+        return inner;
+    }
+
+    @Override
+    public boolean isChildRunning(int index) {
+        return true;
+    }
+
+    @Override
+    public long getChildrenVersion() {
+        return inner instanceof CompositeCommand ? ((CompositeCommand) inner).getChildrenVersion() : 0;
     }
 }
\ No newline at end of file
@@ -2,14 +2,18 @@ package com.vcs.valleylib.core.command;
 
 import androidx.annotation.NonNull;
 
+import com.vcs.valleylib.core.command.decorators.CommandGroups;
 import com.vcs.valleylib.core.command.decorators.DeadlineCommand;
-import com.vcs.valleylib.core.command.decorators.ParallelCommandGroup;
-import com.vcs.valleylib.core.command.decorators.RaceCommand;
-import com.vcs.valleylib.core.command.decorators.SequentialCommandGroup;
+import com.vcs.valleylib.core.subsystem.Subsystem;
 
 import org.jetbrains.annotations.Contract;
 
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * Static factories for common command construction patterns.
@@ -41,6 +45,29 @@ public final class Commands {
         };
     }
 
+    /**
+     * Runs an action every cycle while only reading the given subsystems, so it
+     * can run alongside the commands that control them.
+     *
+     * @param observed subsystems the action reads
+     */
+    @NonNull
+    @Contract(value = "_, _ -> new", pure = true)
+    public static Command observe(Runnable action, Subsystem... observed) {
+        Set<Subsystem> shared = Set.copyOf(Arrays.asList(observed));
+        return new Command() {
+            @Override
+            public void execute() {
+                action.run();
+            }
+
+            @Override
+            public Set<Subsystem> getSharedRequirements() {
+                return shared;
+            }
+        };
+    }
+
     @NonNull
     @Contract(value = "_, _ -> new", pure = true)
     public static Command startEnd(Runnable onStart, Runnable onEnd) {
@@ -72,22 +99,79 @@ public final class Commands {
         return new WaitUntilCommand(condition);
     }
 
+    /**
+     * Waits for a condition, checking it at most once per poll interval.
+     */
+    @NonNull
+    @Contract(value = "_, _ -> new", pure = true)
+    public static Command waitUntil(BooleanSupplier condition, double pollSeconds) {
+        return new WaitUntilCommand(condition, pollSeconds);
+    }
+
+    /**
+     * Builds the command to run each time it is initialized.
+     *
+     * @param supplier     builds the command
+     * @param requirements subsystems the built command may require
+     */
+    @NonNull
+    @Contract(value = "_, _ -> new", pure = true)
+    public static Command defer(Supplier<Command> supplier, Subsystem... requirements) {
+        return new DeferredCommand(supplier, false, Set.copyOf(Arrays.asList(requirements)));
+    }
+
+    /**
+     * Builds the command to run the first time it is initialized and reuses it afterwards.
+     *
+     * @param supplier     builds the command
+     * @param requirements subsystems the built command may require
+     */
+    @NonNull
+    @Contract(value = "_, _ -> new", pure = true)
+    public static Command deferOnce(Supplier<Command> supplier, Subsystem... requirements) {
+        return new DeferredCommand(supplier, true, Set.copyOf(Arrays.asList(requirements)));
+    }
+
+    /**
+     * Runs a computation on a background thread, then the command built from its result.
+     *
+     * @param requirements subsystems used by the continuation
+     */
+    @NonNull
+    @Contract(value = "_, _, _ -> new", pure = true)
+    public static <T> Command async(Callable<T> computation,
+                                    Function<? super T, ? extends Command> continuation,
+                                    Subsystem... requirements) {
+        return new AsyncCommand<>(computation, continuation, requirements);
+    }
+
+    /**
+     * Runs a resumable job in slices of at most {@code quotaSeconds} per cycle.
+     *
+     * @param step runs one slice and returns true while more work is pending
+     */
+    @NonNull
+    @Contract(value = "_, _ -> new", pure = true)
+    public static Command incremental(double quotaSeconds, BooleanSupplier step) {
+        return new IncrementalCommand(quotaSeconds, step);
+    }
+
     @NonNull
     @Contract("_ -> new")
     public static Command sequence(Command... commands) {
-        return new SequentialCommandGroup(commands);
+        return CommandGroups.sequence(commands);
     }
 
     @NonNull
     @Contract("_ -> new")
     public static Command parallel(Command... commands) {
-        return new ParallelCommandGroup(commands);
+        return CommandGroups.parallel(commands);
     }
 
     @NonNull
     @Contract("_ -> new")
     public static Command race(Command... commands) {
-        return new RaceCommand(commands);
+        return CommandGroups.race(commands);
     }
 
     @NonNull
@@ -0,0 +1,42 @@
+package com.vcs.valleylib.core.command;
+
+/**
+ * A command built from child commands that can report which children are
+ * currently running.
+ *
+ * With {@link com.vcs.valleylib.core.scheduler.CommandScheduler#setFineGrainedRequirements(boolean)}
+ * enabled, the scheduler uses this to hand the requirements of finished
+ * children back as soon as they finish. A composite that starts a child from
+ * its own {@code execute()} calls
+ * {@link com.vcs.valleylib.core.scheduler.CommandScheduler#claimChildRequirements(Command)}
+ * right before initializing it, so the scheduler can take those subsystems
+ * back, and end their current owner, before the child touches them.
+ */
+public interface CompositeCommand extends Command {
+
+    /**
+     * @return number of child commands
+     */
+    int getChildCount();
+
+    /**
+     * @param index child index, from 0 to {@link #getChildCount()} - 1
+     * @return the child command
+     */
+    Command getChild(int index);
+
+    /**
+     * @param index child index, from 0 to {@link #getChildCount()} - 1
+     * @return true when the child has been initialized and has not ended yet
+     */
+    boolean isChildRunning(int index);
+
+    /**
+     * Returns a value that changes whenever the set of running children, or the
+     * running children of a nested composite, changes. The scheduler only
+     * recomputes requirements when it sees a new value.
+     *
+     * @return current version of the running-children set
+     */
+    long getChildrenVersion();
+}
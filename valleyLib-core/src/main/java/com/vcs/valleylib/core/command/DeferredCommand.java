@@ -0,0 +1,109 @@
+package com.vcs.valleylib.core.command;
+
+import com.vcs.valleylib.core.subsystem.Subsystem;
+
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Builds its real command only when it is initialized.
+ *
+ * Useful for branch-heavy autos: a command tree (and any paths it creates)
+ * for a branch that is never taken is never built. Requirements cannot be read
+ * from a command that does not exist yet, so declare every subsystem the built
+ * command may require up front.
+ *
+ * Without memoization the supplier runs on every initialize, so the command
+ * sees the robot state at the time it starts. With memoization the first
+ * result is kept and reused.
+ */
+public class DeferredCommand implements CompositeCommand {
+
+    private final Supplier<Command> supplier;
+    private final boolean memoize;
+    private final Set<Subsystem> requirements;
+
+    private Command built;
+    private Command active;
+
+    /**
+     * @param supplier     builds the command to run; a null result finishes immediately
+     * @param memoize      true to build once and reuse the result
+     * @param requirements subsystems the built command may require
+     */
+    public DeferredCommand(Supplier<Command> supplier, boolean memoize, Set<Subsystem> requirements) {
+        this.supplier = supplier;
+        this.memoize = memoize;
+        this.requirements = Set.copyOf(requirements);
+    }
+
+    @Override
+    public void initialize() {
+        Command command = built;
+        if (command == null) {
+            command = supplier.get();
+            if (command == null) {
+                command = new InstantCommand(() -> {});
+            }
+            if (memoize) {
+                built = command;
+            }
+        }
+        active = command;
+        active.initialize();
+    }
+
+    @Override
+    public void execute() {
+        active.execute();
+    }
+
+    @Override
+    public boolean isFinished() {
+        return active.isFinished();
+    }
+
+    @Override
+    public void end(boolean interrupted) {
+        active.end(interrupted);
+        // Let an unmemoized tree be collected once it has run.
+        active = null;
+    }
+
+    @Override
+    public Set<Subsystem> getRequirements() {
+        return requirements;
+    }
+
+    @Override
+    public long getWakeTimeNanos() {
+        return active != null ? active.getWakeTimeNanos() : NO_WAKE_TIME;
+    }
+
+    /**
+     * @return true once the command has been built, or always while running
+     */
+    public boolean isBuilt() {
+        return built != null || active != null;
+    }
+
+    @Override
+    public int getChildCount() {
+        return active != null ? 1 : 0;
+    }
+
+    @Override
+    public Command getChild(int index) {
+        return active;
+    }
+
+    @Override
+    public boolean isChildRunning(int index) {
+        return active != null;
+    }
+
+    @Override
+    public long getChildrenVersion() {
+        return active instanceof CompositeCommand ? ((CompositeCommand) active).getChildrenVersion() : 0;
+    }
+}
@@ -0,0 +1,86 @@
+package com.vcs.valleylib.core.command;
+
+import com.vcs.valleylib.core.time.LoopClock;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * Spreads a large job over several scheduler cycles in resumable slices.
+ *
+ * Each execute() calls the step function repeatedly until it reports that no
+ * work is pending or its time for the cycle is used up, then yields to the
+ * rest of the loop. That time ends at the per-cycle quota or at the running
+ * scheduler's {@link LoopClock#getCycleDeadlineNanos() cycle deadline},
+ * whichever comes first, and is measured on the scheduler's clock, so virtual
+ * time sources apply. At least one step runs per cycle so the job always makes
+ * progress. Keep each step small (one table row, one spline segment) so a
+ * single step cannot overrun the quota by much.
+ *
+ * Useful for:
+ *  - rebuilding lookup tables
+ *  - computing path splines
+ *  - compacting logs
+ */
+public class IncrementalCommand extends BaseCommand {
+
+    private final long quotaNanos;
+    private final Runnable start;
+    private final BooleanSupplier step;
+
+    private boolean pending;
+    private int cyclesUsed;
+
+    /**
+     * @param quotaSeconds maximum time spent stepping per cycle
+     * @param step runs one slice of work and returns true while more work is pending
+     */
+    public IncrementalCommand(double quotaSeconds, BooleanSupplier step) {
+        this(quotaSeconds, () -> {}, step);
+    }
+
+    /**
+     * @param quotaSeconds maximum time spent stepping per cycle
+     * @param start resets the job when the command is initialized
+     * @param step runs one slice of work and returns true while more work is pending
+     */
+    public IncrementalCommand(double quotaSeconds, Runnable start, BooleanSupplier step) {
+        this.quotaNanos = (long) (quotaSeconds * 1_000_000_000L);
+        this.start = start;
+        this.step = step;
+    }
+
+    @Override
+    protected void onInitialize() {
+        pending = true;
+        cyclesUsed = 0;
+        start.run();
+    }
+
+    @Override
+    protected void onExecute() {
+        if (!pending) {
+            return;
+        }
+        cyclesUsed++;
+        LoopClock clock = LoopClock.current();
+        long deadline = clock.sampleNanos() + quotaNanos;
+        if (clock.hasCycleDeadline() && clock.getCycleDeadlineNanos() - deadline < 0) {
+            deadline = clock.getCycleDeadlineNanos();
+        }
+        do {
+            pending = step.getAsBoolean();
+        } while (pending && clock.sampleNanos() - deadline < 0);
+    }
+
+    @Override
+    protected boolean onIsFinished() {
+        return !pending;
+    }
+
+    /**
+     * @return number of cycles that have run at least one step since initialize()
+     */
+    public int getCyclesUsed() {
+        return cyclesUsed;
+    }
+}
@@ -1,25 +1,28 @@
 package com.vcs.valleylib.core.command;
 
+import com.vcs.valleylib.core.time.LoopClock;
+
 /**
  * A command that does nothing for a fixed duration.
  *
- * Commonly used in autonomous command sequences.
+ * Commonly used in autonomous command sequences. Time is read from the
+ * scheduler's {@link LoopClock}.
  */
 public class WaitCommand implements Command {
 
-    private final long waitTimeMs;
-    private long startTime;
+    private final long waitNanos;
+    private long startNanos;
 
     /**
      * @param seconds duration to wait
      */
     public WaitCommand(double seconds) {
-        this.waitTimeMs = (long) (seconds * 1000);
+        this.waitNanos = (long) (seconds * 1_000_000_000L);
     }
 
     @Override
     public void initialize() {
-        startTime = System.currentTimeMillis();
+        startNanos = LoopClock.current().getNanos();
     }
 
     @Override
@@ -27,6 +30,11 @@ public class WaitCommand implements Command {
 
     @Override
     public boolean isFinished() {
-        return System.currentTimeMillis() - startTime >= waitTimeMs;
+        return LoopClock.current().getNanos() - startNanos >= waitNanos;
+    }
+
+    @Override
+    public long getWakeTimeNanos() {
+        return startNanos + waitNanos;
     }
 }
\ No newline at end of file
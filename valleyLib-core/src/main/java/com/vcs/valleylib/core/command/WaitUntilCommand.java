@@ -1,16 +1,36 @@
 package com.vcs.valleylib.core.command;
 
+import com.vcs.valleylib.core.time.LoopClock;
+
 import java.util.function.BooleanSupplier;
 
 /**
  * Finishes once a condition evaluates to true.
+ *
+ * By default the condition is checked every cycle. With a poll interval the
+ * scheduler parks the command between checks, which suits slow conditions
+ * such as a match timer or a sensor that only updates a few times a second.
  */
 public class WaitUntilCommand implements Command {
 
     private final BooleanSupplier condition;
+    private final long pollNanos;
+    private long lastPollNanos;
 
     public WaitUntilCommand(BooleanSupplier condition) {
+        this(condition, 0);
+    }
+
+    /**
+     * @param condition   condition to wait for
+     * @param pollSeconds minimum time between checks, or 0 to check every cycle
+     */
+    public WaitUntilCommand(BooleanSupplier condition, double pollSeconds) {
+        if (pollSeconds < 0) {
+            throw new IllegalArgumentException("pollSeconds must not be negative");
+        }
         this.condition = condition;
+        this.pollNanos = (long) (pollSeconds * 1_000_000_000L);
     }
 
     @Override
@@ -18,6 +38,12 @@ public class WaitUntilCommand implements Command {
 
     @Override
     public boolean isFinished() {
+        lastPollNanos = LoopClock.current().getNanos();
         return condition.getAsBoolean();
     }
+
+    @Override
+    public long getWakeTimeNanos() {
+        return pollNanos > 0 ? lastPollNanos + pollNanos : NO_WAKE_TIME;
+    }
 }
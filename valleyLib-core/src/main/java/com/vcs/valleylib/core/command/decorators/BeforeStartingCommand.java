@@ -17,4 +17,9 @@ public class BeforeStartingCommand extends CommandWrapper {
         action.run();
         super.onInitialize();
     }
+
+    @Override
+    public long getWakeTimeNanos() {
+        return inner.getWakeTimeNanos();
+    }
 }
\ No newline at end of file
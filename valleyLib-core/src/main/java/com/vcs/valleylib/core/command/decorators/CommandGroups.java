@@ -0,0 +1,231 @@
+package com.vcs.valleylib.core.command.decorators;
+
+import com.vcs.valleylib.core.command.Command;
+import com.vcs.valleylib.core.command.CompositeCommand;
+import com.vcs.valleylib.core.subsystem.Subsystem;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Shared helpers for composite commands.
+ */
+public final class CommandGroups {
+
+    private static final AtomicLong VERSIONS = new AtomicLong();
+
+    private CommandGroups() {}
+
+    /**
+     * Returns a new value from a counter shared by all groups, so a group's
+     * version can be combined with its children's by taking the maximum.
+     */
+    static long nextChildrenVersion() {
+        return VERSIONS.incrementAndGet();
+    }
+
+    /**
+     * Combines a group's own version with those of its running composite children.
+     *
+     * @param group        group to inspect
+     * @param ownVersion   value of {@link #nextChildrenVersion()} at the group's last child change
+     * @return the latest version in the group's running subtree
+     */
+    static long latestChildrenVersion(CompositeCommand group, long ownVersion) {
+        long version = ownVersion;
+        for (int i = 0; i < group.getChildCount(); i++) {
+            Command child = group.getChild(i);
+            if (child instanceof CompositeCommand && group.isChildRunning(i)) {
+                version = Math.max(version, ((CompositeCommand) child).getChildrenVersion());
+            }
+        }
+        return version;
+    }
+
+    /**
+     * Computes the union of child requirements once, for groups to return
+     * from {@link Command#getRequirements()} without rebuilding it per call.
+     *
+     * @param commands child commands
+     * @return unmodifiable union of child requirements
+     */
+    public static Set<Subsystem> unionRequirements(Command... commands) {
+        Set<Subsystem> requirements = new LinkedHashSet<>();
+        for (Command command : commands) {
+            requirements.addAll(command.getRequirements());
+        }
+        return requirements.isEmpty() ? Set.of() : Collections.unmodifiableSet(requirements);
+    }
+
+    /**
+     * Variant of {@link #unionRequirements(Command...)} for a leading command
+     * followed by the remaining children.
+     */
+    public static Set<Subsystem> unionRequirements(Command first, Command[] others) {
+        Set<Subsystem> requirements = new LinkedHashSet<>(first.getRequirements());
+        for (Command command : others) {
+            requirements.addAll(command.getRequirements());
+        }
+        return requirements.isEmpty() ? Set.of() : Collections.unmodifiableSet(requirements);
+    }
+
+    /**
+     * Computes the union of child shared requirements, leaving out subsystems
+     * the group already requires exclusively.
+     *
+     * @param commands     child commands
+     * @param requirements the group's exclusive requirements
+     * @return unmodifiable union of child shared requirements
+     */
+    public static Set<Subsystem> unionSharedRequirements(Command[] commands, Set<Subsystem> requirements) {
+        Set<Subsystem> shared = new LinkedHashSet<>();
+        for (Command command : commands) {
+            shared.addAll(command.getSharedRequirements());
+        }
+        shared.removeAll(requirements);
+        return shared.isEmpty() ? Set.of() : Collections.unmodifiableSet(shared);
+    }
+
+    /**
+     * Variant of {@link #unionSharedRequirements(Command[], Set)} for a leading
+     * command followed by the remaining children.
+     */
+    public static Set<Subsystem> unionSharedRequirements(Command first, Command[] others, Set<Subsystem> requirements) {
+        Command[] all = new Command[others.length + 1];
+        all[0] = first;
+        System.arraycopy(others, 0, all, 1, others.length);
+        return unionSharedRequirements(all, requirements);
+    }
+
+    /**
+     * Drops repeated instances so each child appears once, keeping first-seen order.
+     *
+     * @param commands child commands
+     * @return the same array when it has no repeats, otherwise a shorter copy
+     */
+    public static Command[] distinct(Command[] commands) {
+        int count = 0;
+        Command[] unique = null;
+        for (int i = 0; i < commands.length; i++) {
+            boolean repeated = false;
+            for (int j = 0; j < i && !repeated; j++) {
+                repeated = commands[j] == commands[i];
+            }
+            if (repeated && unique == null) {
+                unique = Arrays.copyOf(commands, i);
+                count = i;
+            } else if (!repeated && unique != null) {
+                unique[count++] = commands[i];
+            }
+        }
+        return unique == null ? commands : Arrays.copyOf(unique, count);
+    }
+
+    /**
+     * Builds a sequential group, splicing in the children of any argument that
+     * is itself a plain {@link SequentialCommandGroup}, so chained
+     * {@code andThen} calls produce one flat group instead of a nested stack.
+     *
+     * @param commands commands to run in order
+     * @return flattened sequential group
+     */
+    public static SequentialCommandGroup sequence(Command... commands) {
+        return new SequentialCommandGroup(flatten(SequentialCommandGroup.class, commands));
+    }
+
+    /**
+     * Builds a parallel group, splicing in the children of nested plain
+     * {@link ParallelCommandGroup}s.
+     *
+     * @param commands commands to run together
+     * @return flattened parallel group
+     */
+    public static ParallelCommandGroup parallel(Command... commands) {
+        return new ParallelCommandGroup(flatten(ParallelCommandGroup.class, commands));
+    }
+
+    /**
+     * Builds a race, splicing in the children of nested plain {@link RaceCommand}s.
+     *
+     * @param commands commands to race
+     * @return flattened race
+     */
+    public static RaceCommand race(Command... commands) {
+        return new RaceCommand(flatten(RaceCommand.class, commands));
+    }
+
+    /**
+     * Replaces every command of exactly the given group class with its
+     * children. Subclasses are left alone since they may change the behavior.
+     */
+    private static Command[] flatten(Class<? extends Command> type, Command[] commands) {
+        int count = 0;
+        boolean nested = false;
+        for (Command command : commands) {
+            if (isFlattenable(command, type)) {
+                count += childrenOf(command).length;
+                nested = true;
+            } else {
+                count++;
+            }
+        }
+        if (!nested) {
+            return commands;
+        }
+        Command[] flat = new Command[count];
+        int index = 0;
+        for (Command command : commands) {
+            if (isFlattenable(command, type)) {
+                Command[] children = childrenOf(command);
+                System.arraycopy(children, 0, flat, index, children.length);
+                index += children.length;
+            } else {
+                flat[index++] = command;
+            }
+        }
+        return flat;
+    }
+
+    /**
+     * A sequence configured to chain through keeps its own setting and stays nested.
+     */
+    private static boolean isFlattenable(Command command, Class<? extends Command> type) {
+        if (command.getClass() != type) {
+            return false;
+        }
+        return !(command instanceof SequentialCommandGroup)
+                || ((SequentialCommandGroup) command).getChainLimit() == 0;
+    }
+
+    private static Command[] childrenOf(Command group) {
+        if (group instanceof SequentialCommandGroup) {
+            return ((SequentialCommandGroup) group).children();
+        }
+        if (group instanceof ParallelCommandGroup) {
+            return ((ParallelCommandGroup) group).children();
+        }
+        return ((RaceCommand) group).children();
+    }
+
+    /**
+     * Earliest {@link Command#getWakeTimeNanos()} among children that all run
+     * every cycle the group runs.
+     *
+     * @param commands child commands
+     * @return earliest wake time, or {@link Command#NO_WAKE_TIME} when any child
+     *         runs every cycle or there are no children
+     */
+    public static long earliestWakeTime(Command[] commands) {
+        if (commands.length == 0) {
+            return Command.NO_WAKE_TIME;
+        }
+        long wake = Long.MAX_VALUE;
+        for (Command command : commands) {
+            wake = Math.min(wake, command.getWakeTimeNanos());
+        }
+        return wake;
+    }
+}
@@ -2,28 +2,37 @@ package com.vcs.valleylib.core.command.decorators;
 
 import com.vcs.valleylib.core.command.BaseCommand;
 import com.vcs.valleylib.core.command.Command;
+import com.vcs.valleylib.core.command.CompositeCommand;
 import com.vcs.valleylib.core.subsystem.Subsystem;
 
-import java.util.Arrays;
-import java.util.LinkedHashSet;
 import java.util.Set;
 
-public class DeadlineCommand extends BaseCommand {
+public class DeadlineCommand extends BaseCommand implements CompositeCommand {
 
     private final Command deadline;
     private final Command[] others;
+    private final Set<Subsystem> requirements;
+    private final Set<Subsystem> sharedRequirements;
+    private long childrenVersion;
 
     public DeadlineCommand(Command deadline, Command... others) {
         this.deadline = deadline;
         this.others = others;
+        this.requirements = CommandGroups.unionRequirements(deadline, others);
+        this.sharedRequirements = CommandGroups.unionSharedRequirements(deadline, others, requirements);
     }
 
     @Override
     protected void onInitialize() {
         deadline.initialize();
+        childrenVersion = CommandGroups.nextChildrenVersion();
         for (Command c : others) c.initialize();
     }
 
+    /**
+     * Executes every child each cycle, including ones that already report finished.
+     * Only the deadline decides when the group ends.
+     */
     @Override
     protected void onExecute() {
         deadline.execute();
@@ -35,16 +44,57 @@ public class DeadlineCommand extends BaseCommand {
         return deadline.isFinished();
     }
 
+    @Override
+    public long getWakeTimeNanos() {
+        long wake = deadline.getWakeTimeNanos();
+        for (Command c : others) {
+            wake = Math.min(wake, c.getWakeTimeNanos());
+        }
+        return wake;
+    }
+
     @Override
     protected void onEnd(boolean interrupted) {
         deadline.end(interrupted);
         for (Command c : others) c.end(true);
     }
 
+    @Override
+    public int getChildCount() {
+        return others.length + 1;
+    }
+
+    /**
+     * @param index 0 for the deadline command, then the other commands in order
+     */
+    @Override
+    public Command getChild(int index) {
+        return index == 0 ? deadline : others[index - 1];
+    }
+
+    /**
+     * Every child counts as running until the deadline ends, because children
+     * that already report finished are still executed. With fine-grained
+     * requirements a deadline group therefore holds all of its children's
+     * subsystems until it ends.
+     */
+    @Override
+    public boolean isChildRunning(int index) {
+        return true;
+    }
+
+    @Override
+    public long getChildrenVersion() {
+        return CommandGroups.latestChildrenVersion(this, childrenVersion);
+    }
+
     @Override
     public Set<Subsystem> getRequirements() {
-        Set<Subsystem> requirements = new LinkedHashSet<>(deadline.getRequirements());
-        Arrays.stream(others).forEach(command -> requirements.addAll(command.getRequirements()));
         return requirements;
     }
+
+    @Override
+    public Set<Subsystem> getSharedRequirements() {
+        return sharedRequirements;
+    }
 }
@@ -0,0 +1,182 @@
+package com.vcs.valleylib.core.command.decorators;
+
+import com.vcs.valleylib.core.command.Command;
+import com.vcs.valleylib.core.command.CommandWrapper;
+import com.vcs.valleylib.core.scheduler.ExecutionRate;
+import com.vcs.valleylib.core.scheduler.Priority;
+import com.vcs.valleylib.core.time.LoopClock;
+
+import java.util.Arrays;
+import java.util.function.BooleanSupplier;
+
+/**
+ * One wrapper holding a whole chain of decorators around a command.
+ *
+ * {@link Command#withTimeout}, {@link Command#until}, {@link Command#onlyWhile},
+ * {@link Command#beforeStarting}, {@link Command#finallyDo},
+ * {@link Command#withPriority} and {@link Command#withRate} called on a
+ * decorated command return a new decorated command around the same inner
+ * command instead of wrapping it again, so a decorator chain costs one dispatch
+ * layer however long it is. The result behaves like the nested decorators it
+ * replaces. Instances are immutable once built and share nothing but the inner
+ * command with the instance they were derived from.
+ */
+public final class DecoratedCommand extends CommandWrapper {
+
+    private static final long NO_TIMEOUT = Long.MAX_VALUE;
+    private static final BooleanSupplier[] NO_CONDITIONS = new BooleanSupplier[0];
+    private static final Runnable[] NO_ACTIONS = new Runnable[0];
+
+    private final long timeoutNanos;
+    private final BooleanSupplier[] untilConditions;
+    private final BooleanSupplier[] whileConditions;
+    private final Runnable[] beforeActions;
+    private final Runnable[] finallyActions;
+    private final Priority priority;
+    private final ExecutionRate rate;
+    private long startNanos;
+
+    private DecoratedCommand(Command inner, long timeoutNanos,
+                             BooleanSupplier[] untilConditions, BooleanSupplier[] whileConditions,
+                             Runnable[] beforeActions, Runnable[] finallyActions,
+                             Priority priority, ExecutionRate rate) {
+        super(inner);
+        this.timeoutNanos = timeoutNanos;
+        this.untilConditions = untilConditions;
+        this.whileConditions = whileConditions;
+        this.beforeActions = beforeActions;
+        this.finallyActions = finallyActions;
+        this.priority = priority;
+        this.rate = rate;
+    }
+
+    /**
+     * Returns a decorated command that can absorb further decorators: the
+     * command itself when it already is one, otherwise a plain wrapper around it.
+     */
+    public static DecoratedCommand of(Command command) {
+        if (command instanceof DecoratedCommand) {
+            return (DecoratedCommand) command;
+        }
+        return new DecoratedCommand(command, NO_TIMEOUT, NO_CONDITIONS, NO_CONDITIONS,
+                NO_ACTIONS, NO_ACTIONS, null, null);
+    }
+
+    /**
+     * @return the command all decorators in this chain apply to
+     */
+    public Command getInner() {
+        return inner;
+    }
+
+    @Override
+    public Command withTimeout(double seconds) {
+        long nanos = (long) (seconds * 1_000_000_000L);
+        return new DecoratedCommand(inner, Math.min(timeoutNanos, nanos), untilConditions, whileConditions,
+                beforeActions, finallyActions, priority, rate);
+    }
+
+    @Override
+    public Command until(BooleanSupplier condition) {
+        return new DecoratedCommand(inner, timeoutNanos, append(untilConditions, condition), whileConditions,
+                beforeActions, finallyActions, priority, rate);
+    }
+
+    @Override
+    public Command onlyWhile(BooleanSupplier condition) {
+        return new DecoratedCommand(inner, timeoutNanos, untilConditions, append(whileConditions, condition),
+                beforeActions, finallyActions, priority, rate);
+    }
+
+    @Override
+    public Command beforeStarting(Runnable action) {
+        // An outer beforeStarting runs first.
+        Runnable[] actions = new Runnable[beforeActions.length + 1];
+        actions[0] = action;
+        System.arraycopy(beforeActions, 0, actions, 1, beforeActions.length);
+        return new DecoratedCommand(inner, timeoutNanos, untilConditions, whileConditions,
+                actions, finallyActions, priority, rate);
+    }
+
+    @Override
+    public Command finallyDo(Runnable action) {
+        return new DecoratedCommand(inner, timeoutNanos, untilConditions, whileConditions,
+                beforeActions, append(finallyActions, action), priority, rate);
+    }
+
+    @Override
+    public Command withPriority(Priority priority) {
+        return new DecoratedCommand(inner, timeoutNanos, untilConditions, whileConditions,
+                beforeActions, finallyActions, priority, rate);
+    }
+
+    @Override
+    public Command withRate(ExecutionRate rate) {
+        return new DecoratedCommand(inner, timeoutNanos, untilConditions, whileConditions,
+                beforeActions, finallyActions, priority, rate);
+    }
+
+    @Override
+    protected void onInitialize() {
+        for (Runnable action : beforeActions) {
+            action.run();
+        }
+        startNanos = LoopClock.current().getNanos();
+        inner.initialize();
+    }
+
+    @Override
+    protected boolean onIsFinished() {
+        if (inner.isFinished()) {
+            return true;
+        }
+        if (timeoutNanos != NO_TIMEOUT && LoopClock.current().getNanos() - startNanos >= timeoutNanos) {
+            return true;
+        }
+        for (BooleanSupplier condition : untilConditions) {
+            if (condition.getAsBoolean()) {
+                return true;
+            }
+        }
+        for (BooleanSupplier condition : whileConditions) {
+            if (!condition.getAsBoolean()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    protected void onEnd(boolean interrupted) {
+        inner.end(interrupted);
+        for (Runnable action : finallyActions) {
+            action.run();
+        }
+    }
+
+    @Override
+    public Priority getPriority() {
+        return priority != null ? priority : inner.getPriority();
+    }
+
+    @Override
+    public ExecutionRate getExecutionRate() {
+        return rate != null ? rate : inner.getExecutionRate();
+    }
+
+    @Override
+    public long getWakeTimeNanos() {
+        if (untilConditions.length > 0 || whileConditions.length > 0) {
+            // Conditions have to be polled every cycle.
+            return NO_WAKE_TIME;
+        }
+        long wake = inner.getWakeTimeNanos();
+        return timeoutNanos == NO_TIMEOUT ? wake : Math.min(wake, startNanos + timeoutNanos);
+    }
+
+    private static <T> T[] append(T[] array, T value) {
+        T[] copy = Arrays.copyOf(array, array.length + 1);
+        copy[array.length] = value;
+        return copy;
+    }
+}
@@ -17,4 +17,9 @@ public class FinallyCommand extends CommandWrapper {
         super.onEnd(interrupted);
         action.run();
     }
+
+    @Override
+    public long getWakeTimeNanos() {
+        return inner.getWakeTimeNanos();
+    }
 }
\ No newline at end of file
@@ -18,4 +18,10 @@ public class OnlyWhileCommand extends CommandWrapper {
     protected boolean onIsFinished() {
         return !condition.getAsBoolean() || inner.isFinished();
     }
+
+    @Override
+    public long getWakeTimeNanos() {
+        // The condition has to be polled every cycle.
+        return NO_WAKE_TIME;
+    }
 }
\ No newline at end of file
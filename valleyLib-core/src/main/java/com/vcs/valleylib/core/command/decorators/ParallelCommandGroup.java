@@ -2,61 +2,117 @@ package com.vcs.valleylib.core.command.decorators;
 
 import com.vcs.valleylib.core.command.BaseCommand;
 import com.vcs.valleylib.core.command.Command;
+import com.vcs.valleylib.core.command.CompositeCommand;
 import com.vcs.valleylib.core.subsystem.Subsystem;
 
-import java.util.Arrays;
-import java.util.LinkedHashSet;
 import java.util.Set;
 
-public class ParallelCommandGroup extends BaseCommand {
+public class ParallelCommandGroup extends BaseCommand implements CompositeCommand {
 
     private final Command[] commands;
-    private final Set<Command> running = new LinkedHashSet<>();
+    private final Set<Subsystem> requirements;
+    private final Set<Subsystem> sharedRequirements;
+    private final boolean[] running;
+    private int runningCount;
+    private long childrenVersion;
 
     public ParallelCommandGroup(Command... commands) {
-        this.commands = commands;
+        this.commands = CommandGroups.distinct(commands);
+        this.requirements = CommandGroups.unionRequirements(this.commands);
+        this.sharedRequirements = CommandGroups.unionSharedRequirements(this.commands, requirements);
+        this.running = new boolean[this.commands.length];
     }
 
     @Override
     protected void onInitialize() {
-        running.clear();
-        running.addAll(Arrays.asList(commands));
-        for (Command command : running) {
-            command.initialize();
+        runningCount = commands.length;
+        childrenVersion = CommandGroups.nextChildrenVersion();
+        for (int i = 0; i < commands.length; i++) {
+            running[i] = true;
+            commands[i].initialize();
         }
     }
 
     @Override
     protected void onExecute() {
-        running.removeIf(command -> {
+        for (int i = 0; i < commands.length; i++) {
+            if (!running[i]) {
+                continue;
+            }
+            Command command = commands[i];
             command.execute();
             if (command.isFinished()) {
                 command.end(false);
-                return true;
+                running[i] = false;
+                runningCount--;
+                childrenVersion = CommandGroups.nextChildrenVersion();
             }
-            return false;
-        });
+        }
     }
 
     @Override
     protected boolean onIsFinished() {
-        return running.isEmpty();
+        return runningCount == 0;
+    }
+
+    @Override
+    public long getWakeTimeNanos() {
+        long wake = Long.MAX_VALUE;
+        for (int i = 0; i < commands.length; i++) {
+            if (running[i]) {
+                wake = Math.min(wake, commands[i].getWakeTimeNanos());
+            }
+        }
+        return wake == Long.MAX_VALUE ? NO_WAKE_TIME : wake;
     }
 
     @Override
     protected void onEnd(boolean interrupted) {
         if (interrupted) {
-            for (Command command : running) {
-                command.end(true);
+            for (int i = 0; i < commands.length; i++) {
+                if (running[i]) {
+                    commands[i].end(true);
+                    running[i] = false;
+                }
             }
-            running.clear();
+            runningCount = 0;
         }
     }
 
+    @Override
+    public int getChildCount() {
+        return commands.length;
+    }
+
+    @Override
+    public Command getChild(int index) {
+        return commands[index];
+    }
+
+    @Override
+    public boolean isChildRunning(int index) {
+        return running[index];
+    }
+
+    @Override
+    public long getChildrenVersion() {
+        return CommandGroups.latestChildrenVersion(this, childrenVersion);
+    }
+
     @Override
     public Set<Subsystem> getRequirements() {
-        Set<Subsystem> requirements = new LinkedHashSet<>();
-        Arrays.stream(commands).forEach(command -> requirements.addAll(command.getRequirements()));
         return requirements;
     }
+
+    @Override
+    public Set<Subsystem> getSharedRequirements() {
+        return sharedRequirements;
+    }
+
+    /**
+     * @return child commands in order, for flattening nested groups
+     */
+    Command[] children() {
+        return commands;
+    }
 }
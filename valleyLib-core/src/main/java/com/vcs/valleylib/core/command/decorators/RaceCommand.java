@@ -4,20 +4,24 @@ import com.vcs.valleylib.core.command.BaseCommand;
 import com.vcs.valleylib.core.command.Command;
 import com.vcs.valleylib.core.subsystem.Subsystem;
 
-import java.util.Arrays;
-import java.util.LinkedHashSet;
 import java.util.Set;
 
 public class RaceCommand extends BaseCommand {
 
     private final Command[] commands;
+    private final Set<Subsystem> requirements;
+    private final Set<Subsystem> sharedRequirements;
+    private boolean anyFinished;
 
     public RaceCommand(Command... commands) {
         this.commands = commands;
+        this.requirements = CommandGroups.unionRequirements(commands);
+        this.sharedRequirements = CommandGroups.unionSharedRequirements(commands, requirements);
     }
 
     @Override
     protected void onInitialize() {
+        anyFinished = false;
         for (Command c : commands) {
             c.initialize();
         }
@@ -27,15 +31,20 @@ public class RaceCommand extends BaseCommand {
     protected void onExecute() {
         for (Command c : commands) {
             c.execute();
+            if (c.isFinished()) {
+                anyFinished = true;
+            }
         }
     }
 
     @Override
     protected boolean onIsFinished() {
-        for (Command c : commands) {
-            if (c.isFinished()) return true;
-        }
-        return false;
+        return anyFinished;
+    }
+
+    @Override
+    public long getWakeTimeNanos() {
+        return CommandGroups.earliestWakeTime(commands);
     }
 
     @Override
@@ -47,8 +56,18 @@ public class RaceCommand extends BaseCommand {
 
     @Override
     public Set<Subsystem> getRequirements() {
-        Set<Subsystem> requirements = new LinkedHashSet<>();
-        Arrays.stream(commands).forEach(command -> requirements.addAll(command.getRequirements()));
         return requirements;
     }
+
+    @Override
+    public Set<Subsystem> getSharedRequirements() {
+        return sharedRequirements;
+    }
+
+    /**
+     * @return child commands in order, for flattening nested groups
+     */
+    Command[] children() {
+        return commands;
+    }
 }
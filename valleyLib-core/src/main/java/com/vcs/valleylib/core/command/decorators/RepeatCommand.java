@@ -2,6 +2,7 @@ package com.vcs.valleylib.core.command.decorators;
 
 import com.vcs.valleylib.core.command.Command;
 import com.vcs.valleylib.core.command.CommandWrapper;
+import com.vcs.valleylib.core.scheduler.CommandScheduler;
 
 public class RepeatCommand extends CommandWrapper {
 
@@ -14,8 +15,21 @@ public class RepeatCommand extends CommandWrapper {
         inner.execute();
         if (inner.isFinished()) {
             inner.end(false);
+            CommandScheduler.claimChildRequirements(inner);
             inner.initialize();
         }
     }
 
+    @Override
+    protected boolean onIsFinished() {
+        // Runs until interrupted, even when the restarted command already reports finished.
+        return false;
+    }
+
+    @Override
+    public long getWakeTimeNanos() {
+        // The restart only happens once the wrapped command finishes, which is its own wake time.
+        return inner.getWakeTimeNanos();
+    }
+
 }
\ No newline at end of file
@@ -2,24 +2,65 @@ package com.vcs.valleylib.core.command.decorators;
 
 import com.vcs.valleylib.core.command.BaseCommand;
 import com.vcs.valleylib.core.command.Command;
+import com.vcs.valleylib.core.command.CompositeCommand;
+import com.vcs.valleylib.core.scheduler.CommandScheduler;
 import com.vcs.valleylib.core.subsystem.Subsystem;
 
-import java.util.Arrays;
-import java.util.LinkedHashSet;
 import java.util.Set;
 
-public class SequentialCommandGroup extends BaseCommand {
+/**
+ * Runs child commands one after another.
+ *
+ * By default, when a child finishes, the next child is initialized in the same
+ * cycle and first executes on the following one. With
+ * {@link #chainThrough(int, double)} the group keeps going instead: it executes
+ * the next child right away and continues while children finish immediately,
+ * so a run of instant steps costs one cycle rather than one cycle each.
+ */
+public class SequentialCommandGroup extends BaseCommand implements CompositeCommand {
 
     private final Command[] commands;
+    private final Set<Subsystem> requirements;
+    private final Set<Subsystem> sharedRequirements;
     private int currentIndex;
+    private int chainLimit;
+    private long chainBudgetNanos;
+    private long childrenVersion;
 
     public SequentialCommandGroup(Command... commands) {
         this.commands = commands;
+        this.requirements = CommandGroups.unionRequirements(commands);
+        this.sharedRequirements = CommandGroups.unionSharedRequirements(commands, requirements);
+    }
+
+    /**
+     * Lets children that follow a finished child start executing in the same cycle.
+     *
+     * @param maxChained    most additional children to start executing per cycle, or 0 to disable
+     * @param budgetSeconds stop chaining once this much time has been spent in the
+     *                      group this cycle, or 0 for no time limit
+     * @return this group
+     */
+    public SequentialCommandGroup chainThrough(int maxChained, double budgetSeconds) {
+        if (maxChained < 0 || budgetSeconds < 0) {
+            throw new IllegalArgumentException("chain limit and budget must not be negative");
+        }
+        this.chainLimit = maxChained;
+        this.chainBudgetNanos = (long) (budgetSeconds * 1_000_000_000L);
+        return this;
+    }
+
+    /**
+     * @return most additional children started per cycle, 0 when chaining is disabled
+     */
+    public int getChainLimit() {
+        return chainLimit;
     }
 
     @Override
     protected void onInitialize() {
         currentIndex = 0;
+        childrenVersion = CommandGroups.nextChildrenVersion();
         if (commands.length > 0) {
             commands[0].initialize();
         }
@@ -27,19 +68,26 @@ public class SequentialCommandGroup extends BaseCommand {
 
     @Override
     protected void onExecute() {
-        if (currentIndex >= commands.length) {
-            return;
-        }
-
-        Command current = commands[currentIndex];
-        current.execute();
+        long start = chainBudgetNanos > 0 ? System.nanoTime() : 0;
+        int chained = 0;
+        while (currentIndex < commands.length) {
+            Command current = commands[currentIndex];
+            current.execute();
+            if (!current.isFinished()) {
+                return;
+            }
 
-        if (current.isFinished()) {
             current.end(false);
             currentIndex++;
+            childrenVersion = CommandGroups.nextChildrenVersion();
             if (currentIndex < commands.length) {
+                CommandScheduler.claimChildRequirements(commands[currentIndex]);
                 commands[currentIndex].initialize();
             }
+            if (++chained > chainLimit
+                    || (chainBudgetNanos > 0 && System.nanoTime() - start >= chainBudgetNanos)) {
+                return;
+            }
         }
     }
 
@@ -48,6 +96,11 @@ public class SequentialCommandGroup extends BaseCommand {
         return currentIndex >= commands.length;
     }
 
+    @Override
+    public long getWakeTimeNanos() {
+        return currentIndex < commands.length ? commands[currentIndex].getWakeTimeNanos() : NO_WAKE_TIME;
+    }
+
     @Override
     protected void onEnd(boolean interrupted) {
         if (interrupted && currentIndex < commands.length) {
@@ -55,10 +108,40 @@ public class SequentialCommandGroup extends BaseCommand {
         }
     }
 
+    @Override
+    public int getChildCount() {
+        return commands.length;
+    }
+
+    @Override
+    public Command getChild(int index) {
+        return commands[index];
+    }
+
+    @Override
+    public boolean isChildRunning(int index) {
+        return index == currentIndex;
+    }
+
+    @Override
+    public long getChildrenVersion() {
+        return CommandGroups.latestChildrenVersion(this, childrenVersion);
+    }
+
     @Override
     public Set<Subsystem> getRequirements() {
-        Set<Subsystem> requirements = new LinkedHashSet<>();
-        Arrays.stream(commands).forEach(command -> requirements.addAll(command.getRequirements()));
         return requirements;
     }
+
+    @Override
+    public Set<Subsystem> getSharedRequirements() {
+        return sharedRequirements;
+    }
+
+    /**
+     * @return child commands in order, for flattening nested groups
+     */
+    Command[] children() {
+        return commands;
+    }
 }
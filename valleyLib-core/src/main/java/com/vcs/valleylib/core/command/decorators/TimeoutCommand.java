@@ -2,26 +2,32 @@ package com.vcs.valleylib.core.command.decorators;
 
 import com.vcs.valleylib.core.command.Command;
 import com.vcs.valleylib.core.command.CommandWrapper;
+import com.vcs.valleylib.core.time.LoopClock;
 
 public class TimeoutCommand extends CommandWrapper {
 
-    private final long timeoutMillis;
-    private long startTime;
+    private final long timeoutNanos;
+    private long startNanos;
 
     public TimeoutCommand(Command inner, long timeoutMillis) {
         super(inner);
-        this.timeoutMillis = timeoutMillis;
+        this.timeoutNanos = timeoutMillis * 1_000_000L;
     }
 
     @Override
     protected void onInitialize() {
-        startTime = System.currentTimeMillis();
+        startNanos = LoopClock.current().getNanos();
         super.onInitialize();
     }
 
     @Override
     protected boolean onIsFinished() {
         return inner.isFinished() ||
-                System.currentTimeMillis() - startTime >= timeoutMillis;
+                LoopClock.current().getNanos() - startNanos >= timeoutNanos;
+    }
+
+    @Override
+    public long getWakeTimeNanos() {
+        return Math.min(inner.getWakeTimeNanos(), startNanos + timeoutNanos);
     }
 }
\ No newline at end of file
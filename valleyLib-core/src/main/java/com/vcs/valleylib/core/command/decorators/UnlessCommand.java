@@ -30,4 +30,9 @@ public class UnlessCommand extends CommandWrapper {
     protected boolean onIsFinished() {
         return skip || inner.isFinished();
     }
+
+    @Override
+    public long getWakeTimeNanos() {
+        return skip ? NO_WAKE_TIME : inner.getWakeTimeNanos();
+    }
 }
\ No newline at end of file
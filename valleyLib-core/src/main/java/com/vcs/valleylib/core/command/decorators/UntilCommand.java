@@ -18,4 +18,10 @@ public class UntilCommand extends CommandWrapper {
     protected boolean onIsFinished() {
         return inner.isFinished() || condition.getAsBoolean();
     }
+
+    @Override
+    public long getWakeTimeNanos() {
+        // The condition has to be polled every cycle.
+        return NO_WAKE_TIME;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,213 @@
+package com.vcs.valleylib.core.scheduler;
+
+import com.vcs.valleylib.core.command.Command;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Preallocated ring buffer of command lifecycle events.
+ *
+ * The scheduler's loop thread is the only writer. Recording an event never
+ * allocates, locks or waits for readers: once the buffer is full the oldest
+ * events are overwritten. Any number of readers, each with its own
+ * {@link Cursor}, can drain the journal from other threads at whatever rate
+ * suits them; a reader that falls more than a buffer behind skips the lost
+ * events and sees them counted in {@link Cursor#getMissed()}.
+ *
+ * Each slot carries the sequence number it holds, set to a negative marker
+ * while it is being rewritten, so readers detect torn or overwritten slots
+ * without any locking.
+ */
+public final class CommandJournal {
+
+    private static final JournalEventType[] TYPES = JournalEventType.values();
+
+    private final int mask;
+    private final AtomicLongArray slotSequence;
+    private final AtomicLongArray types;
+    private final AtomicLongArray timestamps;
+    private final AtomicLongArray durations;
+    private final AtomicReferenceArray<Command> commands;
+    private final AtomicReferenceArray<Command> causes;
+    private final AtomicLong published = new AtomicLong();
+    private long next;
+
+    /**
+     * @param capacity number of events kept, rounded up to a power of two
+     */
+    public CommandJournal(int capacity) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("capacity must be in [1, 2^30]");
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        mask = size - 1;
+        slotSequence = new AtomicLongArray(size);
+        types = new AtomicLongArray(size);
+        timestamps = new AtomicLongArray(size);
+        durations = new AtomicLongArray(size);
+        commands = new AtomicReferenceArray<>(size);
+        causes = new AtomicReferenceArray<>(size);
+        for (int i = 0; i < size; i++) {
+            slotSequence.set(i, -1);
+        }
+    }
+
+    /**
+     * @return number of events the journal holds before overwriting
+     */
+    public int getCapacity() {
+        return mask + 1;
+    }
+
+    /**
+     * @return total number of events recorded so far
+     */
+    public long getPublishedCount() {
+        return published.get();
+    }
+
+    /**
+     * @return a cursor positioned at the oldest event still in the journal
+     */
+    public Cursor newCursor() {
+        return new Cursor(Math.max(0, published.get() - getCapacity()));
+    }
+
+    /**
+     * Appends an event. Loop thread only.
+     */
+    void record(JournalEventType type, Command command, Command cause, long timestampNanos, long durationNanos) {
+        long sequence = next++;
+        int index = (int) sequence & mask;
+        slotSequence.set(index, -2 - sequence);
+        types.set(index, type.ordinal());
+        timestamps.set(index, timestampNanos);
+        durations.set(index, durationNanos);
+        commands.set(index, command);
+        causes.set(index, cause);
+        slotSequence.set(index, sequence);
+        published.set(sequence + 1);
+    }
+
+    /**
+     * Reads the event with the given sequence number.
+     *
+     * @param sequence event to read
+     * @param out holder to fill
+     * @return false when the event has not been published yet or was overwritten
+     */
+    public boolean read(long sequence, JournalEvent out) {
+        if (sequence < 0 || sequence >= published.get()) {
+            return false;
+        }
+        int index = (int) sequence & mask;
+        if (slotSequence.get(index) != sequence) {
+            return false;
+        }
+        int type = (int) types.get(index);
+        long timestamp = timestamps.get(index);
+        long duration = durations.get(index);
+        Command command = commands.get(index);
+        Command cause = causes.get(index);
+        if (slotSequence.get(index) != sequence) {
+            return false;
+        }
+        out.sequence = sequence;
+        out.type = TYPES[type];
+        out.timestampNanos = timestamp;
+        out.durationNanos = duration;
+        out.command = command;
+        out.cause = cause;
+        return true;
+    }
+
+    /**
+     * Sequential reader over a journal. A cursor is owned by a single reader thread.
+     */
+    public final class Cursor {
+
+        private final JournalEvent event = new JournalEvent();
+        private long position;
+        private long missed;
+
+        private Cursor(long position) {
+            this.position = position;
+        }
+
+        /**
+         * Advances to the next available event, skipping any that were overwritten.
+         *
+         * @return the next event, valid until the following call, or null when caught up
+         */
+        public JournalEvent next() {
+            while (position < published.get()) {
+                if (read(position, event)) {
+                    position++;
+                    return event;
+                }
+                long oldest = published.get() - getCapacity();
+                if (position < oldest) {
+                    missed += oldest - position;
+                    position = oldest;
+                } else {
+                    missed++;
+                    position++;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Replays every available event to a listener, in order.
+         *
+         * {@link JournalEventType#INTERRUPTED} events are delivered as
+         * {@link CommandSchedulerListener#onCommandCanceled(Command)} followed by
+         * {@link CommandSchedulerListener#onCommandInterrupted(Command, Command)},
+         * matching direct dispatch.
+         *
+         * @return number of events delivered
+         */
+        public int dispatchTo(CommandSchedulerListener listener) {
+            int delivered = 0;
+            JournalEvent current;
+            while ((current = next()) != null) {
+                switch (current.type) {
+                    case SCHEDULED:
+                        listener.onCommandScheduled(current.command);
+                        break;
+                    case FINISHED:
+                        listener.onCommandFinished(current.command);
+                        break;
+                    case CANCELED:
+                        listener.onCommandCanceled(current.command);
+                        break;
+                    case INTERRUPTED:
+                        listener.onCommandCanceled(current.command);
+                        listener.onCommandInterrupted(current.command, current.cause);
+                        break;
+                }
+                delivered++;
+            }
+            return delivered;
+        }
+
+        /**
+         * @return number of events lost because this cursor fell behind
+         */
+        public long getMissed() {
+            return missed;
+        }
+
+        /**
+         * @return sequence number of the next event this cursor will read
+         */
+        public long getPosition() {
+            return position;
+        }
+    }
+}
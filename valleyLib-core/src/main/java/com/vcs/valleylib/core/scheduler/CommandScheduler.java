@@ -1,7 +1,10 @@
 package com.vcs.valleylib.core.scheduler;
 
 import com.vcs.valleylib.core.command.Command;
+import com.vcs.valleylib.core.command.CompositeCommand;
 import com.vcs.valleylib.core.subsystem.Subsystem;
+import com.vcs.valleylib.core.time.LoopClock;
+import com.vcs.valleylib.core.time.TimeSource;
 
 import java.util.*;
 
@@ -14,46 +17,210 @@ import java.util.*;
  *  - runs subsystem periodic methods
  *  - manages default commands
  *
- * This class is a singleton by design.
+ * Runtime state is array-backed so that, once commands have been scheduled
+ * at least once, {@link #run()}, {@link #schedule(Command)} and
+ * {@link #cancel(Command)} do not allocate. Requirements are read from
+ * {@link Command#getRequirements()} when a command is scheduled and kept in
+ * its slot until it finishes or is canceled. Masks are cached in a small
+ * fixed-size table keyed by the identity of the returned set, so a command
+ * that returns the same set every time is converted only once, and the
+ * scheduler keeps no reference to a command that has stopped running apart
+ * from a bounded number of profiles.
+ *
+ * Every subsystem the scheduler sees gets a dense integer ID, so a command's
+ * requirements are a {@code long} bit mask and conflict, preemption and idle
+ * checks are bitwise operations. A scheduler tracks at most
+ * {@value #MAX_SUBSYSTEMS} distinct subsystems.
+ *
+ * Only {@link Command#getRequirements() exclusive requirements} are claimed.
+ * {@link Command#getSharedRequirements() Shared requirements} mark subsystems a
+ * command only reads; they never conflict, so observers run alongside the
+ * command controlling a subsystem and alongside its default command.
+ *
+ * With a cycle budget set, {@link Priority#BEST_EFFORT} commands and subsystems
+ * run in a second lane after all critical work, and are deferred to the next
+ * cycle once the budget is used up.
+ *
+ * Subsystems and commands may declare an {@link ExecutionRate}. Jobs that are
+ * not due in a cycle are skipped, periodic methods are dispatched fastest rate
+ * first, and jobs sharing a rate are spread across cycles with phase offsets.
+ *
+ * With {@link #setParallelPeriodicThreads(int)} above zero, periodic methods of
+ * subsystems marked {@link Subsystem#setIndependent(boolean) independent} run on
+ * a small worker pool, with a barrier before any command executes.
+ *
+ * With {@link #setProfilingEnabled(boolean)}, the wall time of every
+ * initialize, execute, end and periodic call is recorded into fixed-size
+ * {@link LatencyHistogram}s per command and subsystem instance; read them with
+ * {@link #getProfileSnapshot()}. A {@link CommandWatchdog} flags individual
+ * calls that exceed a threshold, optionally with the loop thread's stack.
+ *
+ * Lifecycle events go straight to registered listeners by default. With a
+ * {@link CommandJournal} set, they are written into its preallocated ring
+ * buffer instead, and listeners drain it on their own thread or at a lower rate.
+ *
+ * A command that reports a future {@link Command#getWakeTimeNanos() wake time}
+ * after it executes is parked in a hierarchical timer wheel and left out of the
+ * command pass until that time, so waits and timeouts cost nothing per cycle
+ * while they are pending.
+ *
+ * With {@link #setFineGrainedRequirements(boolean)}, a {@link CompositeCommand}
+ * such as a command group holds only the requirements of its running children:
+ * subsystems are released as children finish and claimed again, through
+ * {@link #claimChildRequirements(Command)}, right before a child starts.
+ *
+ * A command scheduled while {@link #run()} is executing commands, including a
+ * default command for a subsystem freed during the pass, gets its first
+ * execute in the same cycle. {@link #flush()} gives the same guarantee to
+ * commands scheduled after {@link #run()} returns, and
+ * {@link #getScheduleLatency()} measures the time from schedule to first execute.
+ *
+ * Each scheduler owns a {@link LoopClock}, sampled once at the start of every
+ * {@link #run()}. Time-based commands, decorators, triggers and execution rates
+ * read the loop timestamp from it, and its time source can be replaced with a
+ * virtual one in tests. Cycle budgets, profiling and the watchdog always
+ * measure real time.
+ *
+ * Threading: the scheduler is confined to the loop thread. Other threads
+ * (vision pipelines, dashboard callbacks) must not call {@link #schedule(Command)}
+ * or {@link #cancel(Command)} directly; they use {@link #submitSchedule(Command)},
+ * {@link #submitCancel(Command)} and {@link #runOnLoop(Runnable)}, which post to a
+ * lock-free queue that {@link #run()} drains at the start of each cycle.
+ *
+ * Schedulers are plain instances: simulations and tests can create as many
+ * independent schedulers as they need and drive each one from its own thread.
+ * {@link #getInstance()} remains as the shared default used by robot code.
  */
 public final class CommandScheduler {
 
-    private static CommandScheduler instance;
+    /**
+     * Maximum number of distinct subsystems, bounded by the width of a requirement mask.
+     */
+    public static final int MAX_SUBSYSTEMS = Long.SIZE;
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final long DEFAULT_CYCLE_NANOS = 10_000_000L;
+    private static final int COMMAND_PHASES = ProfiledPhase.END.ordinal() + 1;
+    private static final int MAX_SAME_CYCLE_STARTS = 64;
+    private static final int MAX_PROFILED_COMMANDS = 128;
+    private static final int MASK_CACHE_SIZE = 64;
+    private static final ThreadLocal<CommandScheduler> EXECUTING = new ThreadLocal<>();
+
+    private ScheduledCommand[] scheduled = new ScheduledCommand[INITIAL_CAPACITY];
+    private int scheduledCount;
+    private ScheduledCommand[] slotPool = new ScheduledCommand[INITIAL_CAPACITY];
+    private int slotPoolCount;
+    private ScheduledCommand[] parked = new ScheduledCommand[INITIAL_CAPACITY];
+    private int parkedCount;
+    private final TimerWheel wheel = new TimerWheel();
+
+    private final Subsystem[] subsystemsById = new Subsystem[MAX_SUBSYSTEMS];
+    private final RateTimetable.Entry[] subsystemRates = new RateTimetable.Entry[MAX_SUBSYSTEMS];
+    private final int[] dispatchOrder = new int[MAX_SUBSYSTEMS];
+    private int dispatchCount;
+    private boolean dispatchOrderDirty;
+    private final Command[] owners = new Command[MAX_SUBSYSTEMS];
+    private int subsystemCount;
+    private long registeredMask;
+    private long claimedMask;
 
-    private final Set<Command> scheduledCommands = new HashSet<>();
-    private final Map<Subsystem, Command> requirements = new HashMap<>();
-    private final Set<Subsystem> subsystems = new HashSet<>();
-    private final Set<CommandSchedulerListener> listeners = new LinkedHashSet<>();
+    private final Set<?>[] maskCacheKeys = new Set<?>[MASK_CACHE_SIZE];
+    private final long[] maskCacheValues = new long[MASK_CACHE_SIZE];
+    private final List<CommandSchedulerListener> listeners = new ArrayList<>();
+    private CommandJournal journal;
+
+    private final RateTimetable timetable = new RateTimetable();
+    private final SubmissionQueue submissions = new SubmissionQueue();
+    private final Subsystem[] parallelBatch = new Subsystem[MAX_SUBSYSTEMS];
+    private final Subsystem[] serialBatch = new Subsystem[MAX_SUBSYSTEMS];
+    private final LatencyHistogram[] parallelProfiles = new LatencyHistogram[MAX_SUBSYSTEMS];
+    private final LatencyHistogram[] serialProfiles = new LatencyHistogram[MAX_SUBSYSTEMS];
+    private ParallelPeriodicExecutor parallelExecutor;
+
+    private boolean profilingEnabled;
+    private boolean fineGrainedRequirements;
+    private ScheduledCommand executingComposite;
+    private CommandWatchdog watchdog;
+    private final LatencyHistogram[] periodicProfiles = new LatencyHistogram[MAX_SUBSYSTEMS];
+    private final Map<Command, CommandProfile> commandProfiles = new IdentityHashMap<>();
+    private CommandProfile[] profileTable = new CommandProfile[INITIAL_CAPACITY];
+    private int profileCount;
+    private long profileUseCount;
+    private final LatencyHistogram scheduleLatency = new LatencyHistogram();
 
     private boolean simulationEnabled;
+    private boolean running;
+    private boolean iterating;
+    private boolean hasHoles;
+
+    private final LoopClock clock = new LoopClock();
+    private long cycleCount;
+    private long sampleEpoch;
+    private long averageCycleNanos = DEFAULT_CYCLE_NANOS;
 
-    private CommandScheduler() {}
+    private long cycleBudgetNanos;
+    private long cycleStartNanos;
+    private long budgetStartNanos;
+    private int bestEffortCursor;
+    private int deferredLastCycle;
 
     /**
-     * @return the single global scheduler instance
+     * Creates an independent scheduler with no subsystems, commands or listeners.
+     */
+    public CommandScheduler() {}
+
+    /**
+     * @return the shared default scheduler instance
      */
     public static CommandScheduler getInstance() {
-        if (instance == null) {
-            instance = new CommandScheduler();
-        }
-        return instance;
+        return Holder.INSTANCE;
+    }
+
+    private static final class Holder {
+        static final CommandScheduler INSTANCE = new CommandScheduler();
     }
 
     /**
      * Registers a subsystem so its periodic method and default command
      * can be managed by the scheduler.
      *
+     * The subsystem is assigned a dense ID if it does not have one yet.
+     *
      * @param subsystem subsystem to register
      */
     public void registerSubsystem(Subsystem subsystem) {
-        subsystems.add(subsystem);
+        long bit = 1L << idOf(subsystem);
+        if ((registeredMask & bit) == 0) {
+            registeredMask |= bit;
+            dispatchOrderDirty = true;
+        }
+    }
+
+    /**
+     * Returns the dense ID this scheduler uses for a subsystem in requirement masks.
+     *
+     * IDs are assigned on registration, or the first time a scheduled command
+     * requires an unregistered subsystem, and are cleared by {@link #reset()}.
+     *
+     * @param subsystem subsystem to look up
+     * @return the subsystem ID, or -1 when this scheduler has not seen it
+     */
+    public int getSubsystemId(Subsystem subsystem) {
+        for (int id = 0; id < subsystemCount; id++) {
+            if (subsystemsById[id] == subsystem) {
+                return id;
+            }
+        }
+        return -1;
     }
 
     /**
      * Adds a command lifecycle listener.
      */
     public void addListener(CommandSchedulerListener listener) {
-        listeners.add(listener);
+        if (!listeners.contains(listener)) {
+            listeners.add(listener);
+        }
     }
 
     /**
@@ -63,6 +230,23 @@ public final class CommandScheduler {
         listeners.remove(listener);
     }
 
+    /**
+     * Routes lifecycle events into a journal instead of calling listeners directly.
+     *
+     * While a journal is set, listeners added with {@link #addListener} are not
+     * called by the scheduler; drain the journal with
+     * {@link CommandJournal.Cursor#dispatchTo(CommandSchedulerListener)} instead.
+     *
+     * @param journal journal to record into, or null to restore direct dispatch
+     */
+    public void setJournal(CommandJournal journal) {
+        this.journal = journal;
+    }
+
+    public CommandJournal getJournal() {
+        return journal;
+    }
+
     /**
      * Enables/disables simulationPeriodic hooks during run().
      */
@@ -74,13 +258,224 @@ public final class CommandScheduler {
         return simulationEnabled;
     }
 
+    /**
+     * Sets the time budget for a single {@link #run()} call.
+     *
+     * Critical work always runs. Best-effort subsystems and commands then run
+     * in round-robin order until the time since the start of the cycle reaches
+     * the budget, and the rest are deferred to the next cycle. The end of the
+     * budget is published as the {@link LoopClock#getCycleDeadlineNanos() cycle
+     * deadline} of this scheduler's clock while {@link #run()} executes.
+     *
+     * @param seconds budget per cycle, or 0 to run everything every cycle
+     */
+    public void setCycleBudget(double seconds) {
+        this.cycleBudgetNanos = Math.max(0L, (long) (seconds * 1_000_000_000L));
+    }
+
+    /**
+     * @return budget per cycle in seconds, or 0 when budgeting is disabled
+     */
+    public double getCycleBudget() {
+        return cycleBudgetNanos / 1_000_000_000.0;
+    }
+
+    /**
+     * @return number of best-effort subsystems and commands skipped by the last cycle
+     */
+    public int getDeferredLastCycle() {
+        return deferredLastCycle;
+    }
+
+    /**
+     * Sets how many worker threads run independent subsystem periodic methods.
+     *
+     * With 0 threads (the default) every periodic method runs serially on the
+     * calling thread in the same order, which gives a deterministic reference
+     * for comparing results in tests.
+     *
+     * @param threads worker thread count, or 0 for serial execution
+     */
+    public void setParallelPeriodicThreads(int threads) {
+        if (threads < 0) {
+            throw new IllegalArgumentException("threads must not be negative");
+        }
+        if (parallelExecutor != null) {
+            if (parallelExecutor.getThreadCount() == threads) {
+                return;
+            }
+            parallelExecutor.shutdown();
+            parallelExecutor = null;
+        }
+        if (threads > 0) {
+            parallelExecutor = new ParallelPeriodicExecutor(threads);
+        }
+    }
+
+    /**
+     * @return worker thread count for independent periodic methods, 0 when serial
+     */
+    public int getParallelPeriodicThreads() {
+        return parallelExecutor == null ? 0 : parallelExecutor.getThreadCount();
+    }
+
+    /**
+     * Enables or disables timing of every command and subsystem lifecycle call.
+     *
+     * Histograms are created the first time a command or subsystem is timed and
+     * kept until {@link #clearProfiles()} or {@link #reset()}; recording itself
+     * does not allocate. Profiles of at most {@value #MAX_PROFILED_COMMANDS}
+     * commands are kept: once that many exist, a newly timed command takes over
+     * the histograms of the command that finished longest ago.
+     *
+     * @param enabled true to record timings
+     */
+    public void setProfilingEnabled(boolean enabled) {
+        profilingEnabled = enabled;
+    }
+
+    public boolean isProfilingEnabled() {
+        return profilingEnabled;
+    }
+
+    /**
+     * Lets command groups hand back requirements of children that have finished.
+     *
+     * When enabled, a scheduled {@link CompositeCommand} first claims all of its
+     * requirements as usual. After each execute, the scheduler narrows what it
+     * holds to the requirements of its running children, so default commands
+     * and newly scheduled commands can use the other subsystems. When a child
+     * that needs a released subsystem starts, the group claims it back through
+     * {@link #claimChildRequirements(Command)} before initializing the child, so
+     * the command that owned it is interrupted and ended first.
+     *
+     * @param enabled true to track requirements per running child
+     */
+    public void setFineGrainedRequirements(boolean enabled) {
+        fineGrainedRequirements = enabled;
+    }
+
+    public boolean isFineGrainedRequirements() {
+        return fineGrainedRequirements;
+    }
+
+    /**
+     * Claims the requirements of a child that a running composite is about to
+     * initialize, interrupting the commands that own them.
+     *
+     * {@link CompositeCommand}s call this before starting a child from their
+     * {@code execute()}. It does nothing unless the calling thread's scheduler
+     * is executing a composite with fine-grained requirements enabled.
+     *
+     * @param child child command about to be initialized
+     */
+    public static void claimChildRequirements(Command child) {
+        CommandScheduler scheduler = EXECUTING.get();
+        if (scheduler != null && scheduler.executingComposite != null) {
+            scheduler.claimChild(scheduler.executingComposite, child);
+        }
+    }
+
+    /**
+     * Installs a watchdog that reports lifecycle callbacks running over its threshold.
+     *
+     * @param watchdog watchdog to notify, or null to stop watching
+     */
+    public void setWatchdog(CommandWatchdog watchdog) {
+        this.watchdog = watchdog;
+    }
+
+    public CommandWatchdog getWatchdog() {
+        return watchdog;
+    }
+
+    /**
+     * Returns a copy of all recorded timings, worst p99 first.
+     *
+     * Each command instance contributes one entry per phase it has recorded
+     * (initialize, execute, end) and each subsystem one periodic entry.
+     * Call between cycles, from the loop thread.
+     *
+     * @return snapshot entries, ordered by descending p99 then maximum
+     */
+    public List<ProfileEntry> getProfileSnapshot() {
+        List<ProfileEntry> entries = new ArrayList<>();
+        for (int id = 0; id < subsystemCount; id++) {
+            LatencyHistogram profile = periodicProfiles[id];
+            if (profile != null && profile.getCount() > 0) {
+                entries.add(new ProfileEntry(subsystemsById[id], ProfiledPhase.PERIODIC, profile));
+            }
+        }
+        for (int i = 0; i < profileCount; i++) {
+            CommandProfile profile = profileTable[i];
+            for (int phase = 0; phase < profile.phases.length; phase++) {
+                if (profile.phases[phase].getCount() > 0) {
+                    entries.add(new ProfileEntry(profile.command, ProfiledPhase.values()[phase], profile.phases[phase]));
+                }
+            }
+        }
+        entries.sort((a, b) -> {
+            int byP99 = Long.compare(b.getP99Nanos(), a.getP99Nanos());
+            return byP99 != 0 ? byP99 : Long.compare(b.getMaxNanos(), a.getMaxNanos());
+        });
+        return entries;
+    }
+
+    /**
+     * Discards all recorded timings.
+     */
+    public void clearProfiles() {
+        Arrays.fill(periodicProfiles, null);
+        commandProfiles.clear();
+        Arrays.fill(profileTable, 0, profileCount, null);
+        profileCount = 0;
+        for (int i = 0; i < scheduledCount; i++) {
+            if (scheduled[i] != null) {
+                scheduled[i].profile = null;
+            }
+        }
+        for (int i = 0; i < parkedCount; i++) {
+            parked[i].profile = null;
+        }
+    }
+
+    /**
+     * Returns this scheduler's loop clock. Replace its time source with
+     * {@link LoopClock#setTimeSource} to run commands on virtual time.
+     *
+     * @return the clock sampled at the start of every {@link #run()}
+     */
+    public LoopClock getClock() {
+        return clock;
+    }
+
+    /**
+     * @return number of {@link #run()} cycles started since creation or the last reset
+     */
+    public long getCycleCount() {
+        return cycleCount;
+    }
+
+    /**
+     * Returns a counter that changes whenever cached per-cycle samples become stale:
+     * at the start of every {@link #run()} and on {@link #reset()}.
+     *
+     * @return current sample epoch
+     * @see SampledBooleanSupplier
+     */
+    public long getSampleEpoch() {
+        return sampleEpoch;
+    }
+
     /**
      * Runs only subsystem simulation hooks.
      * Useful for desktop tests where full scheduler execution is not desired.
      */
     public void runSimulationStep() {
-        for (Subsystem subsystem : subsystems) {
-            subsystem.simulationPeriodic();
+        for (int id = 0; id < subsystemCount; id++) {
+            if ((registeredMask & (1L << id)) != 0) {
+                subsystemsById[id].simulationPeriodic();
+            }
         }
     }
 
@@ -93,65 +488,676 @@ public final class CommandScheduler {
      * @param command command to schedule
      */
     public void schedule(Command command) {
-        if (scheduledCommands.contains(command)) {
+        if (isScheduled(command)) {
             return;
         }
 
-        for (Subsystem req : command.getRequirements()) {
-            if (requirements.containsKey(req)) {
-                cancel(requirements.get(req));
-            }
+        // Between cycles, give initialize() the current time rather than the last cycle's.
+        clock.makeCurrent();
+        if (!running) {
+            clock.resync();
         }
 
-        for (Subsystem req : command.getRequirements()) {
-            requirements.put(req, command);
+        long mask = maskOf(command.getRequirements());
+
+        long conflicts = claimedMask & mask;
+        while (conflicts != 0) {
+            int id = Long.numberOfTrailingZeros(conflicts);
+            conflicts &= conflicts - 1;
+            Command owner = owners[id];
+            if (owner != null) {
+                cancel(owner, command);
+            }
         }
 
+        claim(command, mask);
+
+        LatencyHistogram[] profile = profilingEnabled ? acquireProfile(command) : null;
+        LatencyHistogram histogram = profile != null ? profile[ProfiledPhase.INITIALIZE.ordinal()] : null;
+        long start = beginTiming(command, ProfiledPhase.INITIALIZE, histogram);
         command.initialize();
-        scheduledCommands.add(command);
-        for (CommandSchedulerListener listener : listeners) {
-            listener.onCommandScheduled(command);
+        endTiming(command, ProfiledPhase.INITIALIZE, histogram, start);
+        ScheduledCommand slot = add(command, mask);
+        slot.heldMask = mask;
+        slot.composite = command instanceof CompositeCommand;
+        slot.childrenVersion = Long.MIN_VALUE;
+        slot.profile = profile;
+        slot.scheduledNanos = System.nanoTime();
+        slot.bestEffort = command.getPriority() == Priority.BEST_EFFORT;
+        ExecutionRate rate = command.getExecutionRate();
+        if (rate != ExecutionRate.EVERY_CYCLE) {
+            timetable.assign(slot.rate, rate, cycleCount, clock.getNanos());
+        }
+        if (journal != null) {
+            journal.record(JournalEventType.SCHEDULED, command, null, slot.scheduledNanos, 0);
+        } else {
+            for (int i = 0; i < listeners.size(); i++) {
+                listeners.get(i).onCommandScheduled(command);
+            }
         }
     }
 
+    /**
+     * Requests that a command be scheduled at the start of the next {@link #run()}.
+     *
+     * Safe to call from any thread.
+     *
+     * @param command command to schedule
+     */
+    public void submitSchedule(Command command) {
+        submissions.offer(SubmissionQueue.SCHEDULE, command, null);
+    }
+
+    /**
+     * Requests that a command be canceled at the start of the next {@link #run()}.
+     *
+     * Safe to call from any thread.
+     *
+     * @param command command to cancel
+     */
+    public void submitCancel(Command command) {
+        submissions.offer(SubmissionQueue.CANCEL, command, null);
+    }
+
+    /**
+     * Runs an action on the loop thread at the start of the next {@link #run()},
+     * in submission order with scheduled and canceled commands.
+     *
+     * Safe to call from any thread.
+     *
+     * @param action action to run on the loop thread
+     */
+    public void runOnLoop(Runnable action) {
+        submissions.offer(SubmissionQueue.RUN, null, action);
+    }
+
     /**
      * Main scheduler loop.
      * Call this once per OpMode loop.
      */
     public void run() {
-        if (simulationEnabled) {
-            runSimulationStep();
+        run(clock.sampleNanos());
+    }
+
+    /**
+     * Runs one cycle at a loop timestamp the caller already read from this
+     * scheduler's clock with {@link LoopClock#sampleNanos()}. Pass the same
+     * timestamp to work done earlier in the loop, such as trigger polling, so
+     * the whole loop sees one time.
+     *
+     * @param nowNanos timestamp of this cycle on the clock's timeline
+     */
+    public void run(long nowNanos) {
+        clock.update(nowNanos);
+        clock.makeCurrent();
+        running = true;
+        // A command that throws must not leave the scheduler marked as running.
+        try {
+            long now = clock.getNanos();
+            if (cycleCount > 0) {
+                averageCycleNanos += (now - cycleStartNanos - averageCycleNanos) / 8;
+            }
+            cycleStartNanos = now;
+            cycleCount++;
+            sampleEpoch++;
+            boolean budgeted = cycleBudgetNanos > 0;
+            budgetStartNanos = budgeted ? System.nanoTime() : 0;
+            if (budgeted) {
+                clock.setCycleDeadline(now + cycleBudgetNanos);
+            }
+
+            drainSubmissions();
+
+            if (simulationEnabled) {
+                runSimulationStep();
+            }
+
+            // Run subsystem background logic, fastest rate first. Independent
+            // subsystems are forked to the worker pool and joined before commands run.
+            refreshSubsystemRates();
+            int parallelCount = 0;
+            int serialCount = 0;
+            for (int i = 0; i < dispatchCount; i++) {
+                int id = dispatchOrder[i];
+                Subsystem subsystem = subsystemsById[id];
+                if (!(budgeted && subsystem.getPriority() == Priority.BEST_EFFORT)
+                        && timetable.isDue(subsystemRates[id], cycleCount, cycleStartNanos)) {
+                    LatencyHistogram profile = profilingEnabled ? periodicProfileOf(id) : null;
+                    if (parallelExecutor != null && subsystem.isIndependent()) {
+                        parallelProfiles[parallelCount] = profile;
+                        parallelBatch[parallelCount++] = subsystem;
+                    } else {
+                        serialProfiles[serialCount] = profile;
+                        serialBatch[serialCount++] = subsystem;
+                    }
+                }
+            }
+            if (parallelCount > 0) {
+                parallelExecutor.fork(parallelBatch, parallelProfiles, watchdog, parallelCount);
+            }
+            for (int i = 0; i < serialCount; i++) {
+                runPeriodic(serialBatch[i], serialProfiles[i]);
+            }
+            if (parallelCount > 0) {
+                parallelExecutor.join();
+            }
+
+            scheduleDefaultCommands();
+
+            // Parked commands that are due rejoin the active set for this pass.
+            if (parkedCount > 0) {
+                wakeParked(now);
+            }
+
+            // Run active commands. Commands scheduled while this loop is running
+            // are appended past the current end and still execute this cycle, as
+            // are default commands of subsystems freed during the pass, up to
+            // MAX_SAME_CYCLE_STARTS of them.
+            iterating = true;
+            int limit = scheduledCount + MAX_SAME_CYCLE_STARTS;
+            int i = 0;
+            do {
+                for (; i < scheduledCount && i < limit; i++) {
+                    ScheduledCommand slot = scheduled[i];
+                    if (slot != null && !(budgeted && slot.bestEffort) && isDue(slot)) {
+                        executeSlot(i);
+                    }
+                }
+            } while (i < limit && scheduleDefaultCommands());
+
+            deferredLastCycle = budgeted ? runBestEffortLane(scheduledCount) : 0;
+        } finally {
+            iterating = false;
+            compact();
+            clock.clearCycleDeadline();
+            running = false;
         }
+    }
 
-        // Run subsystem background logic
-        for (Subsystem subsystem : subsystems) {
-            subsystem.periodic();
+    /**
+     * Executes commands that were scheduled since the last {@link #run()} and
+     * have not executed yet, such as commands scheduled by OpMode code after
+     * {@link #run()} returned.
+     *
+     * Subsystems, triggers and commands that already executed this cycle are
+     * not run again, the loop clock is not advanced, and commands with an
+     * {@link ExecutionRate} wait for the next {@link #run()}. Does nothing when
+     * called from inside {@link #run()}.
+     */
+    public void flush() {
+        if (running) {
+            return;
         }
+        clock.makeCurrent();
+        running = true;
+        iterating = true;
+        try {
+            boolean budgeted = cycleBudgetNanos > 0;
+            int limit = scheduledCount + MAX_SAME_CYCLE_STARTS;
+            for (int i = 0; i < scheduledCount && i < limit; i++) {
+                ScheduledCommand slot = scheduled[i];
+                if (slot != null && !slot.started && !slot.rate.active && !(budgeted && slot.bestEffort)) {
+                    executeSlot(i);
+                }
+            }
+        } finally {
+            iterating = false;
+            compact();
+            running = false;
+        }
+    }
 
-        // Schedule default commands if subsystem is idle
-        for (Subsystem subsystem : subsystems) {
-            Command defaultCmd = subsystem.getDefaultCommand();
+    /**
+     * Returns the time from {@link #schedule(Command)} to the start of each
+     * command's first execute, over all commands since creation or the last
+     * {@link #reset()}.
+     *
+     * @return copy of the schedule-to-execute latency histogram
+     */
+    public LatencyHistogram getScheduleLatency() {
+        return scheduleLatency.copy();
+    }
+
+    /**
+     * Schedules the default command of every registered subsystem that no
+     * command currently requires.
+     *
+     * @return true when at least one default command was scheduled
+     */
+    private boolean scheduleDefaultCommands() {
+        boolean scheduledAny = false;
+        long idle = registeredMask & ~claimedMask;
+        while (idle != 0) {
+            int id = Long.numberOfTrailingZeros(idle);
+            idle &= idle - 1;
+            Command defaultCmd = subsystemsById[id].getDefaultCommand();
             if (defaultCmd != null
-                    && !scheduledCommands.contains(defaultCmd)
-                    && !requirements.containsKey(subsystem)) {
+                    && (claimedMask & (1L << id)) == 0
+                    && !isScheduled(defaultCmd)) {
                 schedule(defaultCmd);
+                scheduledAny = true;
+            }
+        }
+        return scheduledAny;
+    }
+
+    /**
+     * Applies requests posted from other threads, in submission order.
+     */
+    private void drainSubmissions() {
+        SubmissionQueue.Node request;
+        while ((request = submissions.poll()) != null) {
+            Command command = request.command;
+            Runnable action = request.action;
+            int kind = request.kind;
+            submissions.release(request);
+            switch (kind) {
+                case SubmissionQueue.SCHEDULE:
+                    schedule(command);
+                    break;
+                case SubmissionQueue.CANCEL:
+                    cancel(command);
+                    break;
+                case SubmissionQueue.RUN:
+                    action.run();
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Runs best-effort subsystems and commands while the cycle budget lasts.
+     *
+     * Work items are visited in one round-robin order, subsystems by ID followed
+     * by command slots, starting where the previous cycle ran out of time.
+     * Items whose rate says they are not due this cycle are not counted.
+     *
+     * @param commandEnd number of command slots that existed when the cycle started
+     * @return number of best-effort items deferred to the next cycle
+     */
+    private int runBestEffortLane(int commandEnd) {
+        int total = MAX_SUBSYSTEMS + commandEnd;
+        int start = bestEffortCursor < total ? bestEffortCursor : 0;
+        int deferred = 0;
+        boolean outOfTime = false;
+
+        for (int step = 0; step < total; step++) {
+            int item = (start + step) % total;
+            boolean pending;
+            if (item < MAX_SUBSYSTEMS) {
+                pending = (registeredMask & (1L << item)) != 0
+                        && subsystemsById[item].getPriority() == Priority.BEST_EFFORT;
+            } else {
+                ScheduledCommand slot = scheduled[item - MAX_SUBSYSTEMS];
+                pending = slot != null && slot.bestEffort;
+            }
+            if (!pending) {
+                continue;
+            }
+
+            if (!outOfTime && System.nanoTime() - budgetStartNanos >= cycleBudgetNanos) {
+                outOfTime = true;
+                bestEffortCursor = item;
             }
+            if (item < MAX_SUBSYSTEMS) {
+                // Time-based rates advance when checked, so only check when the job can run.
+                if (outOfTime) {
+                    deferred++;
+                } else if (timetable.isDue(subsystemRates[item], cycleCount, cycleStartNanos)) {
+                    runPeriodic(subsystemsById[item], profilingEnabled ? periodicProfileOf(item) : null);
+                }
+            } else if (outOfTime) {
+                deferred++;
+            } else if (isDue(scheduled[item - MAX_SUBSYSTEMS])) {
+                executeSlot(item - MAX_SUBSYSTEMS);
+            }
+        }
+        return deferred;
+    }
+
+    /**
+     * Executes one scheduled command and retires it when it reports finished.
+     */
+    private void executeSlot(int i) {
+        ScheduledCommand slot = scheduled[i];
+        Command command = slot.command;
+        LatencyHistogram[] profile = profileOf(slot);
+
+        if (!slot.started) {
+            slot.started = true;
+            scheduleLatency.record(System.nanoTime() - slot.scheduledNanos);
         }
 
-        // Run active commands
-        Iterator<Command> iterator = scheduledCommands.iterator();
-        while (iterator.hasNext()) {
-            Command command = iterator.next();
+        LatencyHistogram histogram = profile != null ? profile[ProfiledPhase.EXECUTE.ordinal()] : null;
+        long start = beginTiming(command, ProfiledPhase.EXECUTE, histogram);
+        if (fineGrainedRequirements && slot.composite) {
+            if (EXECUTING.get() != this) {
+                EXECUTING.set(this);
+            }
+            ScheduledCommand outer = executingComposite;
+            executingComposite = slot;
+            try {
+                command.execute();
+            } finally {
+                executingComposite = outer;
+            }
+        } else {
             command.execute();
+        }
+        endTiming(command, ProfiledPhase.EXECUTE, histogram, start);
+
+        // execute() may have canceled this command.
+        if (scheduled[i] != slot || slot.command != command) {
+            return;
+        }
 
-            if (command.isFinished()) {
-                command.end(false);
-                release(command);
-                iterator.remove();
-                for (CommandSchedulerListener listener : listeners) {
-                    listener.onCommandFinished(command);
+        if (command.isFinished()) {
+            endCommand(command, false, profile);
+            release(command, slot.requirementMask);
+            long scheduledNanos = slot.scheduledNanos;
+            remove(i);
+            if (journal != null) {
+                long now = System.nanoTime();
+                journal.record(JournalEventType.FINISHED, command, null, now, now - scheduledNanos);
+            } else {
+                for (int l = 0; l < listeners.size(); l++) {
+                    listeners.get(l).onCommandFinished(command);
                 }
             }
+        } else {
+            if (fineGrainedRequirements && slot.composite) {
+                updateHeldRequirements(slot);
+                // Ending an interrupted owner may have canceled this command.
+                if (scheduled[i] != slot || slot.command != command) {
+                    return;
+                }
+            }
+            long wake = command.getWakeTimeNanos();
+            if (wake != Command.NO_WAKE_TIME && wake - clock.getNanos() > 0) {
+                park(i, wake);
+            }
+        }
+    }
+
+    /**
+     * Releases subsystems that no running child of a composite command needs
+     * and claims the ones a newly started child needs, interrupting their owners.
+     */
+    private void updateHeldRequirements(ScheduledCommand slot) {
+        Command command = slot.command;
+        long version = ((CompositeCommand) command).getChildrenVersion();
+        if (version == slot.childrenVersion) {
+            return;
+        }
+        slot.childrenVersion = version;
+        long active = activeMaskOf(command, slot.requirementMask) & slot.requirementMask;
+        long released = slot.heldMask & ~active;
+        long claimed = active & ~slot.heldMask;
+        slot.heldMask = active;
+        release(command, released);
+        interruptOwners(command, claimed);
+        claim(command, claimed);
+    }
+
+    /**
+     * Claims the requirements of a child about to start inside the composite
+     * in a slot, so the child never runs on a subsystem the composite released.
+     */
+    private void claimChild(ScheduledCommand slot, Command child) {
+        Command command = slot.command;
+        long needed = maskOf(child.getRequirements()) & slot.requirementMask & ~slot.heldMask;
+        if (needed == 0) {
+            return;
+        }
+        slot.heldMask |= needed;
+        interruptOwners(command, needed);
+        // Ending an interrupted owner may have canceled the composite.
+        if (slot.command == command) {
+            claim(command, needed);
+        }
+    }
+
+    private void interruptOwners(Command command, long mask) {
+        long conflicts = claimedMask & mask;
+        while (conflicts != 0) {
+            int id = Long.numberOfTrailingZeros(conflicts);
+            conflicts &= conflicts - 1;
+            Command owner = owners[id];
+            if (owner != null && owner != command) {
+                cancel(owner, command);
+            }
+        }
+    }
+
+    /**
+     * Requirements a command needs right now: the active requirements of the
+     * running children of a composite, plus any it declares that no child has.
+     */
+    private long activeMaskOf(Command command, long declared) {
+        if (!(command instanceof CompositeCommand)) {
+            return declared;
+        }
+        CompositeCommand composite = (CompositeCommand) command;
+        long children = 0;
+        long active = 0;
+        for (int i = 0; i < composite.getChildCount(); i++) {
+            Command child = composite.getChild(i);
+            long childMask = maskOf(child.getRequirements());
+            children |= childMask;
+            if (composite.isChildRunning(i)) {
+                active |= activeMaskOf(child, childMask);
+            }
+        }
+        return active | (declared & ~children);
+    }
+
+    /**
+     * Moves a command that has nothing to do until its wake time from the
+     * active set into the timer wheel. Only called from the run loop.
+     */
+    private void park(int index, long wakeNanos) {
+        ScheduledCommand slot = scheduled[index];
+        scheduled[index] = null;
+        hasHoles = true;
+        if (parkedCount == parked.length) {
+            parked = Arrays.copyOf(parked, parkedCount * 2);
+        }
+        slot.parkedIndex = parkedCount;
+        parked[parkedCount++] = slot;
+        wheel.insert(slot, wakeNanos, clock.getNanos());
+    }
+
+    /**
+     * Returns every parked command whose wake time has passed to the active set.
+     */
+    private void wakeParked(long now) {
+        ScheduledCommand slot = wheel.advance(now);
+        while (slot != null) {
+            ScheduledCommand next = slot.wheelNext;
+            slot.wheelNext = null;
+            removeParked(slot);
+            append(slot);
+            slot = next;
+        }
+    }
+
+    private void removeParked(ScheduledCommand slot) {
+        int index = slot.parkedIndex;
+        ScheduledCommand last = parked[--parkedCount];
+        parked[index] = last;
+        last.parkedIndex = index;
+        parked[parkedCount] = null;
+        slot.parkedIndex = -1;
+    }
+
+    /**
+     * Runs a subsystem's periodic method on the loop thread.
+     */
+    private void runPeriodic(Subsystem subsystem, LatencyHistogram profile) {
+        long start = beginTiming(subsystem, ProfiledPhase.PERIODIC, profile);
+        subsystem.periodic();
+        endTiming(subsystem, ProfiledPhase.PERIODIC, profile, start);
+    }
+
+    /**
+     * Runs a subsystem's periodic method on a parallel worker. The watchdog
+     * checks the elapsed time but cannot sample a worker's stack.
+     */
+    static void runPeriodicOnWorker(Subsystem subsystem, LatencyHistogram profile, CommandWatchdog watchdog) {
+        if (profile == null && watchdog == null) {
+            subsystem.periodic();
+            return;
+        }
+        long start = System.nanoTime();
+        subsystem.periodic();
+        long elapsed = System.nanoTime() - start;
+        if (profile != null) {
+            profile.record(elapsed);
+        }
+        if (watchdog != null) {
+            watchdog.check(subsystem, ProfiledPhase.PERIODIC, elapsed);
+        }
+    }
+
+    private void endCommand(Command command, boolean interrupted, LatencyHistogram[] profile) {
+        LatencyHistogram histogram = profile != null ? profile[ProfiledPhase.END.ordinal()] : null;
+        long start = beginTiming(command, ProfiledPhase.END, histogram);
+        command.end(interrupted);
+        endTiming(command, ProfiledPhase.END, histogram, start);
+    }
+
+    /**
+     * Starts timing a lifecycle callback when profiling or the watchdog needs it.
+     *
+     * @return start timestamp, or 0 when the callback is not timed
+     */
+    private long beginTiming(Object source, ProfiledPhase phase, LatencyHistogram histogram) {
+        if (watchdog != null) {
+            return watchdog.begin(source, phase);
+        }
+        return histogram != null ? System.nanoTime() : 0;
+    }
+
+    private void endTiming(Object source, ProfiledPhase phase, LatencyHistogram histogram, long start) {
+        if (watchdog != null) {
+            long elapsed = watchdog.end(source, phase, start);
+            if (histogram != null) {
+                histogram.record(elapsed);
+            }
+        } else if (histogram != null) {
+            histogram.record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Returns the histograms for a scheduled command, or null when profiling is off.
+     * Commands scheduled before profiling was enabled pick theirs up lazily.
+     */
+    private LatencyHistogram[] profileOf(ScheduledCommand slot) {
+        if (!profilingEnabled) {
+            return null;
+        }
+        if (slot.profile == null) {
+            slot.profile = acquireProfile(slot.command);
+        }
+        return slot.profile;
+    }
+
+    /**
+     * Returns the histograms of a command that is being scheduled, reusing those
+     * of the least recently finished command once the profile table is full.
+     */
+    private LatencyHistogram[] acquireProfile(Command command) {
+        CommandProfile profile = commandProfiles.get(command);
+        if (profile == null) {
+            profile = profileCount >= MAX_PROFILED_COMMANDS ? leastRecentlyUsedProfile() : null;
+            if (profile != null) {
+                commandProfiles.remove(profile.command);
+                profile.reset();
+            } else {
+                profile = new CommandProfile();
+                if (profileCount == profileTable.length) {
+                    profileTable = Arrays.copyOf(profileTable, profileCount * 2);
+                }
+                profileTable[profileCount++] = profile;
+            }
+            profile.command = command;
+            commandProfiles.put(command, profile);
+        }
+        profile.inUse = true;
+        return profile.phases;
+    }
+
+    private CommandProfile leastRecentlyUsedProfile() {
+        CommandProfile oldest = null;
+        for (int i = 0; i < profileCount; i++) {
+            CommandProfile profile = profileTable[i];
+            if (!profile.inUse && (oldest == null || profile.lastUsed < oldest.lastUsed)) {
+                oldest = profile;
+            }
+        }
+        return oldest;
+    }
+
+    /**
+     * Marks the profile of a command that is no longer scheduled as reusable.
+     */
+    private void releaseProfile(Command command) {
+        CommandProfile profile = commandProfiles.get(command);
+        if (profile != null) {
+            profile.inUse = false;
+            profile.lastUsed = ++profileUseCount;
+        }
+    }
+
+    private LatencyHistogram periodicProfileOf(int id) {
+        LatencyHistogram profile = periodicProfiles[id];
+        if (profile == null) {
+            profile = new LatencyHistogram();
+            periodicProfiles[id] = profile;
+        }
+        return profile;
+    }
+
+    private boolean isDue(ScheduledCommand slot) {
+        return !slot.rate.active || timetable.isDue(slot.rate, cycleCount, cycleStartNanos);
+    }
+
+    /**
+     * Picks up subsystem rate changes and rebuilds the fastest-first dispatch order.
+     */
+    private void refreshSubsystemRates() {
+        long pending = registeredMask;
+        while (pending != 0) {
+            int id = Long.numberOfTrailingZeros(pending);
+            pending &= pending - 1;
+            ExecutionRate rate = subsystemsById[id].getExecutionRate();
+            RateTimetable.Entry entry = subsystemRates[id];
+            if (rate != entry.rate && !rate.equals(entry.rate)) {
+                timetable.assign(entry, rate, cycleCount - 1, cycleStartNanos);
+                dispatchOrderDirty = true;
+            }
+        }
+
+        if (!dispatchOrderDirty) {
+            return;
+        }
+        dispatchOrderDirty = false;
+        dispatchCount = 0;
+        pending = registeredMask;
+        while (pending != 0) {
+            int id = Long.numberOfTrailingZeros(pending);
+            pending &= pending - 1;
+            // Stable insertion sort by nominal period.
+            long key = subsystemRates[id].rate.nominalPeriodNanos(averageCycleNanos);
+            int j = dispatchCount++;
+            while (j > 0 && subsystemRates[dispatchOrder[j - 1]].rate.nominalPeriodNanos(averageCycleNanos) > key) {
+                dispatchOrder[j] = dispatchOrder[j - 1];
+                j--;
+            }
+            dispatchOrder[j] = id;
         }
     }
 
@@ -161,11 +1167,44 @@ public final class CommandScheduler {
      * @param command command to cancel
      */
     public void cancel(Command command) {
-        if (scheduledCommands.remove(command)) {
-            command.end(true);
-            release(command);
-            for (CommandSchedulerListener listener : listeners) {
-                listener.onCommandCanceled(command);
+        cancel(command, null);
+    }
+
+    /**
+     * Cancels a command, recording which command interrupted it, if any.
+     */
+    private void cancel(Command command, Command interruptedBy) {
+        int index = indexOf(command);
+        ScheduledCommand slot = index >= 0 ? scheduled[index] : parkedSlotOf(command);
+        if (slot == null) {
+            return;
+        }
+        long mask = slot.requirementMask;
+        long scheduledNanos = slot.scheduledNanos;
+        LatencyHistogram[] profile = profileOf(slot);
+        if (index >= 0) {
+            remove(index);
+        } else {
+            wheel.remove(slot);
+            removeParked(slot);
+            recycle(slot);
+        }
+        endCommand(command, true, profile);
+        release(command, mask);
+        notifyCanceled(command, interruptedBy, scheduledNanos);
+    }
+
+    private void notifyCanceled(Command command, Command interruptedBy, long scheduledNanos) {
+        if (journal != null) {
+            long now = System.nanoTime();
+            JournalEventType type = interruptedBy != null ? JournalEventType.INTERRUPTED : JournalEventType.CANCELED;
+            journal.record(type, command, interruptedBy, now, now - scheduledNanos);
+            return;
+        }
+        for (int i = 0; i < listeners.size(); i++) {
+            listeners.get(i).onCommandCanceled(command);
+            if (interruptedBy != null) {
+                listeners.get(i).onCommandInterrupted(command, interruptedBy);
             }
         }
     }
@@ -175,15 +1214,42 @@ public final class CommandScheduler {
      * Typically used when an OpMode stops.
      */
     public void cancelAll() {
-        List<Command> toCancel = new ArrayList<>(scheduledCommands);
-        for (Command command : toCancel) {
-            command.end(true);
-            for (CommandSchedulerListener listener : listeners) {
-                listener.onCommandCanceled(command);
+        Command[] toCancel = new Command[scheduledCount + parkedCount];
+        long[] scheduledNanos = new long[toCancel.length];
+        LatencyHistogram[][] profiles = new LatencyHistogram[toCancel.length][];
+        for (int i = 0; i < scheduledCount; i++) {
+            ScheduledCommand slot = scheduled[i];
+            if (slot != null) {
+                toCancel[i] = slot.command;
+                scheduledNanos[i] = slot.scheduledNanos;
+                profiles[i] = profileOf(slot);
+                recycle(slot);
+                scheduled[i] = null;
+            }
+        }
+        wheel.clear();
+        for (int i = 0; i < parkedCount; i++) {
+            ScheduledCommand slot = parked[i];
+            toCancel[scheduledCount + i] = slot.command;
+            scheduledNanos[scheduledCount + i] = slot.scheduledNanos;
+            profiles[scheduledCount + i] = profileOf(slot);
+            slot.parkedIndex = -1;
+            recycle(slot);
+            parked[i] = null;
+        }
+        scheduledCount = 0;
+        parkedCount = 0;
+        hasHoles = false;
+        Arrays.fill(owners, null);
+        claimedMask = 0;
+        for (int i = 0; i < toCancel.length; i++) {
+            Command command = toCancel[i];
+            if (command == null) {
+                continue;
             }
+            endCommand(command, true, profiles[i]);
+            notifyCanceled(command, null, scheduledNanos[i]);
         }
-        scheduledCommands.clear();
-        requirements.clear();
     }
 
     /**
@@ -195,7 +1261,48 @@ public final class CommandScheduler {
      * @return true when the command is in the scheduled set
      */
     public boolean isScheduled(Command command) {
-        return scheduledCommands.contains(command);
+        return indexOf(command) >= 0 || parkedSlotOf(command) != null;
+    }
+
+    /**
+     * @return number of scheduled commands currently parked until their wake time
+     */
+    public int getParkedCount() {
+        return parkedCount;
+    }
+
+    /**
+     * Returns whether nothing but default commands is running.
+     *
+     * A command counts as a default command when it is the default command of
+     * one of the subsystems it requires.
+     *
+     * @return true when every scheduled command is a default command
+     */
+    public boolean isIdle() {
+        for (int i = 0; i < scheduledCount; i++) {
+            ScheduledCommand slot = scheduled[i];
+            if (slot != null && !isDefaultCommand(slot.command, slot.requirementMask)) {
+                return false;
+            }
+        }
+        for (int i = 0; i < parkedCount; i++) {
+            if (!isDefaultCommand(parked[i].command, parked[i].requirementMask)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isDefaultCommand(Command command, long mask) {
+        while (mask != 0) {
+            int id = Long.numberOfTrailingZeros(mask);
+            mask &= mask - 1;
+            if (subsystemsById[id].getDefaultCommand() == command) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
@@ -205,16 +1312,199 @@ public final class CommandScheduler {
      * distinct robot modes. Any active command is interrupted.
      */
     public void reset() {
+        SubmissionQueue.Node pending;
+        while ((pending = submissions.poll()) != null) {
+            submissions.release(pending);
+        }
         cancelAll();
-        subsystems.clear();
+        setParallelPeriodicThreads(0);
+        Arrays.fill(subsystemsById, null);
+        Arrays.fill(subsystemRates, null);
+        subsystemCount = 0;
+        registeredMask = 0;
+        dispatchCount = 0;
+        dispatchOrderDirty = false;
+        timetable.clear();
+        cycleCount = 0;
+        sampleEpoch++;
+        clock.setTimeSource(TimeSource.SYSTEM);
+        clock.clearCycleDeadline();
+        averageCycleNanos = DEFAULT_CYCLE_NANOS;
         listeners.clear();
+        journal = null;
+        cycleBudgetNanos = 0;
+        bestEffortCursor = 0;
+        deferredLastCycle = 0;
+        Arrays.fill(maskCacheKeys, null);
+        scheduleLatency.reset();
+        fineGrainedRequirements = false;
+        profilingEnabled = false;
+        clearProfiles();
+        watchdog = null;
         simulationEnabled = false;
     }
 
+    /**
+     * Returns the dense ID for a subsystem, assigning the next free one if needed.
+     */
+    private int idOf(Subsystem subsystem) {
+        int id = getSubsystemId(subsystem);
+        if (id >= 0) {
+            return id;
+        }
+        if (subsystemCount == MAX_SUBSYSTEMS) {
+            throw new IllegalStateException(
+                    "CommandScheduler supports at most " + MAX_SUBSYSTEMS + " subsystems");
+        }
+        subsystemsById[subsystemCount] = subsystem;
+        subsystemRates[subsystemCount] = new RateTimetable.Entry();
+        return subsystemCount++;
+    }
+
+    /**
+     * Converts a set of subsystems to a mask, assigning IDs to new subsystems.
+     * Recently converted sets are looked up by identity without iterating them.
+     */
+    private long maskOf(Set<Subsystem> subsystems) {
+        int index = System.identityHashCode(subsystems) & (MASK_CACHE_SIZE - 1);
+        if (maskCacheKeys[index] == subsystems) {
+            return maskCacheValues[index];
+        }
+        long mask = 0;
+        for (Subsystem subsystem : subsystems) {
+            mask |= 1L << idOf(subsystem);
+        }
+        maskCacheKeys[index] = subsystems;
+        maskCacheValues[index] = mask;
+        return mask;
+    }
+
+    private int indexOf(Command command) {
+        for (int i = 0; i < scheduledCount; i++) {
+            ScheduledCommand slot = scheduled[i];
+            if (slot != null && slot.command == command) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private ScheduledCommand parkedSlotOf(Command command) {
+        for (int i = 0; i < parkedCount; i++) {
+            if (parked[i].command == command) {
+                return parked[i];
+            }
+        }
+        return null;
+    }
+
+    private ScheduledCommand add(Command command, long mask) {
+        ScheduledCommand slot = slotPoolCount > 0 ? slotPool[--slotPoolCount] : new ScheduledCommand();
+        slotPool[slotPoolCount] = null;
+        slot.command = command;
+        slot.requirementMask = mask;
+        append(slot);
+        return slot;
+    }
+
+    private void append(ScheduledCommand slot) {
+        if (scheduledCount == scheduled.length) {
+            scheduled = Arrays.copyOf(scheduled, scheduledCount * 2);
+        }
+        scheduled[scheduledCount++] = slot;
+    }
+
+    /**
+     * Removes the command at the given slot. While the run loop is iterating
+     * the slot is only cleared, and {@link #compact()} closes the gap afterwards.
+     */
+    private void remove(int index) {
+        recycle(scheduled[index]);
+        if (iterating) {
+            scheduled[index] = null;
+            hasHoles = true;
+            return;
+        }
+        int tail = scheduledCount - index - 1;
+        if (tail > 0) {
+            System.arraycopy(scheduled, index + 1, scheduled, index, tail);
+        }
+        scheduled[--scheduledCount] = null;
+    }
+
+    private void recycle(ScheduledCommand slot) {
+        if (slot.profile != null) {
+            releaseProfile(slot.command);
+        }
+        timetable.release(slot.rate);
+        slot.clear();
+        if (slotPoolCount == slotPool.length) {
+            slotPool = Arrays.copyOf(slotPool, slotPoolCount * 2);
+        }
+        slotPool[slotPoolCount++] = slot;
+    }
+
+    private void compact() {
+        if (!hasHoles) {
+            return;
+        }
+        int write = 0;
+        for (int read = 0; read < scheduledCount; read++) {
+            if (scheduled[read] != null) {
+                scheduled[write++] = scheduled[read];
+            }
+        }
+        Arrays.fill(scheduled, write, scheduledCount, null);
+        scheduledCount = write;
+        hasHoles = false;
+    }
+
+    /**
+     * Marks the subsystems in a requirement mask as owned by a command.
+     */
+    private void claim(Command command, long mask) {
+        claimedMask |= mask;
+        while (mask != 0) {
+            int id = Long.numberOfTrailingZeros(mask);
+            mask &= mask - 1;
+            owners[id] = command;
+        }
+    }
+
     /**
      * Frees subsystem requirements held by a command.
      */
-    private void release(Command command) {
-        requirements.entrySet().removeIf(e -> e.getValue() == command);
+    private void release(Command command, long mask) {
+        while (mask != 0) {
+            int id = Long.numberOfTrailingZeros(mask);
+            mask &= mask - 1;
+            if (owners[id] == command) {
+                owners[id] = null;
+                claimedMask &= ~(1L << id);
+            }
+        }
+    }
+
+    /**
+     * Histograms of one command instance, kept across schedules of that instance.
+     */
+    private static final class CommandProfile {
+
+        final LatencyHistogram[] phases = new LatencyHistogram[COMMAND_PHASES];
+        Command command;
+        boolean inUse;
+        long lastUsed;
+
+        CommandProfile() {
+            for (int i = 0; i < phases.length; i++) {
+                phases[i] = new LatencyHistogram();
+            }
+        }
+
+        void reset() {
+            for (LatencyHistogram phase : phases) {
+                phase.reset();
+            }
+        }
     }
 }
@@ -4,6 +4,10 @@ import com.vcs.valleylib.core.command.Command;
 
 /**
  * Observer interface for command lifecycle events.
+ *
+ * Listeners are called synchronously on the loop thread unless the scheduler
+ * has a {@link CommandJournal}, in which case they are fed from a
+ * {@link CommandJournal.Cursor} on the reader's own schedule.
  */
 public interface CommandSchedulerListener {
 
@@ -12,4 +16,13 @@ public interface CommandSchedulerListener {
     default void onCommandFinished(Command command) {}
 
     default void onCommandCanceled(Command command) {}
+
+    /**
+     * Called after {@link #onCommandCanceled(Command)} when a command was canceled
+     * because another command claimed one of its requirements.
+     *
+     * @param command the canceled command
+     * @param interruptedBy the command being scheduled in its place
+     */
+    default void onCommandInterrupted(Command command, Command interruptedBy) {}
 }
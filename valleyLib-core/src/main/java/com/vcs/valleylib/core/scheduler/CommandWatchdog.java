@@ -0,0 +1,190 @@
+package com.vcs.valleylib.core.scheduler;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Flags command and subsystem callbacks that run longer than a threshold.
+ *
+ * Install with {@link CommandScheduler#setWatchdog(CommandWatchdog)}. Every
+ * initialize, execute, end and periodic call is timed; those over the
+ * threshold are queued as {@link WatchdogOverrun}s for the robot code to
+ * report, typically once per loop via {@link #pollOverrun()}.
+ *
+ * With {@link #startSampler(double)}, a background thread checks the loop
+ * thread at a fixed period and, once the current callback has passed the
+ * threshold, captures the loop thread's stack so the blocking call shows up
+ * in the report. Periodic methods run on the parallel worker pool are timed
+ * but not sampled.
+ *
+ * Timing a callback that stays under the threshold does not allocate.
+ */
+public final class CommandWatchdog {
+
+    private static final int MAX_PENDING = 64;
+
+    private final long thresholdNanos;
+    private final ConcurrentLinkedQueue<WatchdogOverrun> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final AtomicLong overrunCount = new AtomicLong();
+    private volatile WatchdogOverrun lastOverrun;
+
+    // Loop-thread callback currently in progress, read by the sampler.
+    private volatile Thread loopThread;
+    private volatile Object activeSource;
+    private volatile long activeStartNanos;
+    private volatile long activeToken;
+
+    private volatile StackTraceElement[] capturedStack;
+    private volatile long capturedToken = -1;
+
+    private Thread sampler;
+
+    /**
+     * @param thresholdSeconds callbacks running at least this long are reported
+     */
+    public CommandWatchdog(double thresholdSeconds) {
+        if (!(thresholdSeconds > 0)) {
+            throw new IllegalArgumentException("thresholdSeconds must be positive");
+        }
+        this.thresholdNanos = (long) (thresholdSeconds * 1_000_000_000L);
+    }
+
+    public double getThreshold() {
+        return thresholdNanos / 1e9;
+    }
+
+    /**
+     * Starts a daemon thread that samples the loop thread's stack during overruns.
+     *
+     * @param periodSeconds how often the sampler checks, usually a fraction of the threshold
+     */
+    public synchronized void startSampler(double periodSeconds) {
+        if (!(periodSeconds > 0)) {
+            throw new IllegalArgumentException("periodSeconds must be positive");
+        }
+        if (sampler != null) {
+            return;
+        }
+        long periodNanos = (long) (periodSeconds * 1_000_000_000L);
+        sampler = new Thread(() -> sampleLoop(periodNanos), "valleylib-watchdog");
+        sampler.setDaemon(true);
+        sampler.start();
+    }
+
+    /**
+     * Stops the sampler thread, if running.
+     */
+    public synchronized void stopSampler() {
+        if (sampler != null) {
+            sampler.interrupt();
+            sampler = null;
+        }
+    }
+
+    /**
+     * Removes and returns the oldest unreported overrun.
+     *
+     * At most {@value #MAX_PENDING} overruns are kept; older ones are dropped
+     * but still counted in {@link #getOverrunCount()}.
+     *
+     * @return the next overrun, or null when there is none
+     */
+    public WatchdogOverrun pollOverrun() {
+        WatchdogOverrun overrun = pending.poll();
+        if (overrun != null) {
+            pendingCount.decrementAndGet();
+        }
+        return overrun;
+    }
+
+    /**
+     * @return total number of overruns seen
+     */
+    public long getOverrunCount() {
+        return overrunCount.get();
+    }
+
+    /**
+     * @return most recent overrun, or null when there has been none
+     */
+    public WatchdogOverrun getLastOverrun() {
+        return lastOverrun;
+    }
+
+    /**
+     * Marks the start of a callback on the loop thread.
+     *
+     * @return start timestamp to pass to {@link #end}
+     */
+    long begin(Object source, ProfiledPhase phase) {
+        loopThread = Thread.currentThread();
+        long start = System.nanoTime();
+        activeStartNanos = start;
+        activeToken = activeToken + 1;
+        activeSource = source;
+        return start;
+    }
+
+    /**
+     * Marks the end of the callback started by {@link #begin}. A callback that
+     * schedules another command nests a second begin/end pair; the outer one
+     * is still timed, but is no longer sampled.
+     *
+     * @return elapsed nanoseconds
+     */
+    long end(Object source, ProfiledPhase phase, long start) {
+        long now = System.nanoTime();
+        activeSource = null;
+        long elapsed = now - start;
+        if (elapsed >= thresholdNanos) {
+            StackTraceElement[] stack = capturedToken == activeToken ? capturedStack : null;
+            report(source, phase, elapsed, now, stack);
+        }
+        return elapsed;
+    }
+
+    /**
+     * Checks a callback timed on another thread, without stack sampling.
+     */
+    void check(Object source, ProfiledPhase phase, long elapsed) {
+        if (elapsed >= thresholdNanos) {
+            report(source, phase, elapsed, System.nanoTime(), null);
+        }
+    }
+
+    private void report(Object source, ProfiledPhase phase, long elapsed, long now, StackTraceElement[] stack) {
+        WatchdogOverrun overrun = new WatchdogOverrun(source, phase, elapsed, now, stack);
+        overrunCount.incrementAndGet();
+        lastOverrun = overrun;
+        pending.add(overrun);
+        if (pendingCount.incrementAndGet() > MAX_PENDING) {
+            pollOverrun();
+        }
+    }
+
+    private void sampleLoop(long periodNanos) {
+        long periodMillis = periodNanos / 1_000_000L;
+        int periodExtraNanos = (int) (periodNanos % 1_000_000L);
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                Thread.sleep(periodMillis, periodExtraNanos);
+            } catch (InterruptedException e) {
+                return;
+            }
+            long token = activeToken;
+            Thread thread = loopThread;
+            if (thread == null || activeSource == null || capturedToken == token
+                    || System.nanoTime() - activeStartNanos < thresholdNanos) {
+                continue;
+            }
+            StackTraceElement[] stack = thread.getStackTrace();
+            // Only keep the stack if the same callback was still running afterwards.
+            if (activeToken == token && activeSource != null) {
+                capturedStack = stack;
+                capturedToken = token;
+            }
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.vcs.valleylib.core.scheduler;
+
+/**
+ * How often the scheduler dispatches a subsystem's periodic method or a
+ * command's execute/isFinished pair.
+ *
+ * Rates are either cycle-based ("every Nth run() call") or time-based
+ * ("at most N times per second"). The scheduler spreads jobs with the same
+ * rate over different cycles using phase offsets.
+ */
+public final class ExecutionRate {
+
+    /**
+     * Dispatch on every scheduler cycle. This is the default.
+     */
+    public static final ExecutionRate EVERY_CYCLE = new ExecutionRate(1, 0L);
+
+    private final int cycleDivider;
+    private final long periodNanos;
+
+    private ExecutionRate(int cycleDivider, long periodNanos) {
+        this.cycleDivider = cycleDivider;
+        this.periodNanos = periodNanos;
+    }
+
+    /**
+     * @param cycles number of scheduler cycles between dispatches, at least 1
+     * @return a rate that dispatches on every Nth cycle
+     */
+    public static ExecutionRate everyNthCycle(int cycles) {
+        if (cycles < 1) {
+            throw new IllegalArgumentException("cycles must be at least 1");
+        }
+        return cycles == 1 ? EVERY_CYCLE : new ExecutionRate(cycles, 0L);
+    }
+
+    /**
+     * @param hertz target dispatch frequency, greater than 0
+     * @return a time-based rate, for example {@code hz(50)} for 50 Hz
+     */
+    public static ExecutionRate hz(double hertz) {
+        if (!(hertz > 0)) {
+            throw new IllegalArgumentException("hertz must be greater than 0");
+        }
+        return period(1.0 / hertz);
+    }
+
+    /**
+     * @param seconds target time between dispatches, greater than 0
+     * @return a time-based rate
+     */
+    public static ExecutionRate period(double seconds) {
+        if (!(seconds > 0)) {
+            throw new IllegalArgumentException("seconds must be greater than 0");
+        }
+        return new ExecutionRate(0, Math.max(1L, (long) (seconds * 1_000_000_000L)));
+    }
+
+    /**
+     * @return true when this rate is counted in scheduler cycles
+     */
+    public boolean isCycleBased() {
+        return periodNanos == 0L;
+    }
+
+    /**
+     * @return cycles between dispatches, or 0 for time-based rates
+     */
+    public int getCycleDivider() {
+        return cycleDivider;
+    }
+
+    /**
+     * @return nanoseconds between dispatches, or 0 for cycle-based rates
+     */
+    public long getPeriodNanos() {
+        return periodNanos;
+    }
+
+    /**
+     * Expected time between dispatches, used to order jobs fastest-first.
+     */
+    long nominalPeriodNanos(long cycleNanos) {
+        return isCycleBased() ? cycleDivider * cycleNanos : periodNanos;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ExecutionRate)) return false;
+        ExecutionRate other = (ExecutionRate) o;
+        return cycleDivider == other.cycleDivider && periodNanos == other.periodNanos;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * cycleDivider + Long.hashCode(periodNanos);
+    }
+
+    @Override
+    public String toString() {
+        if (isCycleBased()) {
+            return cycleDivider == 1 ? "EVERY_CYCLE" : "every " + cycleDivider + " cycles";
+        }
+        return (1_000_000_000.0 / periodNanos) + " Hz";
+    }
+}
@@ -0,0 +1,61 @@
+package com.vcs.valleylib.core.scheduler;
+
+import com.vcs.valleylib.core.command.Command;
+
+/**
+ * Reusable holder for one event read from a {@link CommandJournal}.
+ *
+ * A reader fills the same instance again for every event, so draining the
+ * journal does not allocate either.
+ */
+public final class JournalEvent {
+
+    long sequence;
+    JournalEventType type;
+    long timestampNanos;
+    long durationNanos;
+    Command command;
+    Command cause;
+
+    /**
+     * @return position of this event in the journal, starting at 0
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    public JournalEventType getType() {
+        return type;
+    }
+
+    /**
+     * @return {@link System#nanoTime()} when the event was recorded
+     */
+    public long getTimestampNanos() {
+        return timestampNanos;
+    }
+
+    /**
+     * @return time since the command was scheduled, or 0 for {@link JournalEventType#SCHEDULED}
+     */
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    public Command getCommand() {
+        return command;
+    }
+
+    /**
+     * @return the command that caused an {@link JournalEventType#INTERRUPTED} event, otherwise null
+     */
+    public Command getCause() {
+        return cause;
+    }
+
+    @Override
+    public String toString() {
+        return "#" + sequence + " " + type + " " + command.getClass().getSimpleName()
+                + (cause != null ? " by " + cause.getClass().getSimpleName() : "");
+    }
+}
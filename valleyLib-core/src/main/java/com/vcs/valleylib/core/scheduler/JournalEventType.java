@@ -0,0 +1,15 @@
+package com.vcs.valleylib.core.scheduler;
+
+/**
+ * Kind of command lifecycle event recorded in a {@link CommandJournal}.
+ */
+public enum JournalEventType {
+    /** The command was initialized and added to the scheduler. */
+    SCHEDULED,
+    /** The command reported finished and was ended normally. */
+    FINISHED,
+    /** The command was canceled explicitly. */
+    CANCELED,
+    /** The command was canceled because another command claimed one of its requirements. */
+    INTERRUPTED
+}
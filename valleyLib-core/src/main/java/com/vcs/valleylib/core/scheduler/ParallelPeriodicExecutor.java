@@ -0,0 +1,176 @@
+package com.vcs.valleylib.core.scheduler;
+
+import com.vcs.valleylib.core.subsystem.Subsystem;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Small fixed worker pool that runs independent subsystem periodic methods
+ * fork-join style.
+ *
+ * The loop thread forks a batch with {@link #fork}, keeps working on serial
+ * jobs, then calls {@link #join()}, which helps drain the batch and returns
+ * only after every periodic method in it has completed. Nothing is allocated
+ * per batch.
+ *
+ * Task claims carry the batch number in their upper 32 bits, so a worker that
+ * wakes late for a batch that has already been joined cannot claim a task of
+ * the next one.
+ */
+final class ParallelPeriodicExecutor {
+
+    private final Thread[] workers;
+    private final Object lock = new Object();
+
+    private final Subsystem[] tasks = new Subsystem[CommandScheduler.MAX_SUBSYSTEMS];
+    private final LatencyHistogram[] profiles = new LatencyHistogram[CommandScheduler.MAX_SUBSYSTEMS];
+    private volatile int taskCount;
+    private final AtomicLong nextClaim = new AtomicLong();
+    private final AtomicInteger completed = new AtomicInteger();
+    private final AtomicInteger busyWorkers = new AtomicInteger();
+    private CommandWatchdog watchdog;
+    private volatile Throwable failure;
+
+    private long generation;
+    private boolean shutdown;
+
+    ParallelPeriodicExecutor(int threads) {
+        workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            Thread worker = new Thread(this::workerLoop, "valleylib-periodic-" + i);
+            worker.setDaemon(true);
+            workers[i] = worker;
+            worker.start();
+        }
+    }
+
+    int getThreadCount() {
+        return workers.length;
+    }
+
+    /**
+     * Publishes a batch and wakes the workers.
+     *
+     * @param profiles per-task histograms to record into, with null entries for untimed tasks
+     * @param watchdog watchdog to check each task against, or null
+     */
+    void fork(Subsystem[] batch, LatencyHistogram[] profiles, CommandWatchdog watchdog, int count) {
+        long next = generation + 1;
+        // Retag the claim word before touching the task table, so a late worker
+        // of the previous batch can no longer claim anything.
+        nextClaim.set(next << 32);
+        System.arraycopy(batch, 0, tasks, 0, count);
+        this.watchdog = watchdog;
+        System.arraycopy(profiles, 0, this.profiles, 0, count);
+        taskCount = count;
+        failure = null;
+        completed.set(0);
+        synchronized (lock) {
+            generation = next;
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Helps run the current batch, then waits until it is complete.
+     *
+     * @throws RuntimeException wrapping the first failure thrown by a periodic method
+     */
+    void join() {
+        long batch;
+        synchronized (lock) {
+            batch = generation;
+        }
+        runTasks(batch);
+        synchronized (lock) {
+            while (completed.get() < taskCount || busyWorkers.get() > 0) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        for (int i = 0; i < taskCount; i++) {
+            tasks[i] = null;
+            profiles[i] = null;
+        }
+
+        Throwable thrown = failure;
+        if (thrown instanceof RuntimeException) {
+            throw (RuntimeException) thrown;
+        }
+        if (thrown instanceof Error) {
+            throw (Error) thrown;
+        }
+        if (thrown != null) {
+            throw new RuntimeException(thrown);
+        }
+    }
+
+    void shutdown() {
+        synchronized (lock) {
+            shutdown = true;
+            lock.notifyAll();
+        }
+    }
+
+    private void workerLoop() {
+        long seen = 0;
+        while (true) {
+            synchronized (lock) {
+                while (generation == seen && !shutdown) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (shutdown) {
+                    return;
+                }
+                seen = generation;
+                busyWorkers.incrementAndGet();
+            }
+
+            runTasks(seen);
+
+            if (busyWorkers.decrementAndGet() == 0) {
+                synchronized (lock) {
+                    lock.notifyAll();
+                }
+            }
+        }
+    }
+
+    /**
+     * Claims and runs tasks until the given batch has none left. Returns
+     * immediately when a newer batch has replaced it.
+     */
+    private void runTasks(long batch) {
+        while (true) {
+            long claim = nextClaim.get();
+            int index = (int) claim;
+            if (claim >>> 32 != (batch & 0xFFFFFFFFL) || index >= taskCount) {
+                return;
+            }
+            if (!nextClaim.compareAndSet(claim, claim + 1)) {
+                continue;
+            }
+            try {
+                CommandScheduler.runPeriodicOnWorker(tasks[index], profiles[index], watchdog);
+            } catch (Throwable t) {
+                if (failure == null) {
+                    failure = t;
+                }
+            }
+            if (completed.incrementAndGet() == taskCount) {
+                synchronized (lock) {
+                    lock.notifyAll();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.vcs.valleylib.core.scheduler;
+
+/**
+ * Execution lane for commands and subsystems when the scheduler runs with
+ * a cycle budget.
+ *
+ * @see CommandScheduler#setCycleBudget(double)
+ */
+public enum Priority {
+
+    /**
+     * Always runs every cycle, regardless of how much of the budget is used.
+     * Drive control and path following belong here.
+     */
+    CRITICAL,
+
+    /**
+     * Runs after all critical work, and only while the cycle budget has time left.
+     * Deferred work is resumed first on the next cycle.
+     */
+    BEST_EFFORT
+}
@@ -0,0 +1,80 @@
+package com.vcs.valleylib.core.scheduler;
+
+/**
+ * Immutable snapshot of the timings recorded for one command or subsystem phase.
+ *
+ * @see CommandScheduler#getProfileSnapshot()
+ */
+public final class ProfileEntry {
+
+    private final Object source;
+    private final String name;
+    private final ProfiledPhase phase;
+    private final LatencyHistogram histogram;
+
+    ProfileEntry(Object source, ProfiledPhase phase, LatencyHistogram histogram) {
+        this.source = source;
+        this.name = nameOf(source);
+        this.phase = phase;
+        this.histogram = histogram.copy();
+    }
+
+    /**
+     * @return the profiled command or subsystem instance
+     */
+    public Object getSource() {
+        return source;
+    }
+
+    /**
+     * @return simple class name of the command or subsystem
+     */
+    public String getName() {
+        return name;
+    }
+
+    public ProfiledPhase getPhase() {
+        return phase;
+    }
+
+    /**
+     * @return a copy of the histogram taken when the snapshot was made
+     */
+    public LatencyHistogram getHistogram() {
+        return histogram;
+    }
+
+    public long getCount() {
+        return histogram.getCount();
+    }
+
+    public long getP50Nanos() {
+        return histogram.getPercentileNanos(50);
+    }
+
+    public long getP90Nanos() {
+        return histogram.getPercentileNanos(90);
+    }
+
+    public long getP99Nanos() {
+        return histogram.getPercentileNanos(99);
+    }
+
+    public long getMaxNanos() {
+        return histogram.getMaxNanos();
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "%s.%s n=%d p50=%.2fms p90=%.2fms p99=%.2fms max=%.2fms",
+                name, phase.name().toLowerCase(), getCount(),
+                getP50Nanos() / 1e6, getP90Nanos() / 1e6, getP99Nanos() / 1e6, getMaxNanos() / 1e6
+        );
+    }
+
+    private static String nameOf(Object source) {
+        String name = source.getClass().getSimpleName();
+        return name.isEmpty() ? source.getClass().getName() : name;
+    }
+}
@@ -0,0 +1,11 @@
+package com.vcs.valleylib.core.scheduler;
+
+/**
+ * Lifecycle method timed by scheduler profiling.
+ */
+public enum ProfiledPhase {
+    INITIALIZE,
+    EXECUTE,
+    END,
+    PERIODIC
+}
@@ -0,0 +1,130 @@
+package com.vcs.valleylib.core.scheduler;
+
+import java.util.Arrays;
+
+/**
+ * Assigns phase offsets to rate-limited jobs and decides when they are due.
+ *
+ * Cycle-based jobs get the phase that collides with the fewest existing
+ * cycle-based jobs, so two 10-cycle jobs land on different cycles. Time-based
+ * jobs start at a golden-ratio fraction of their period for the same reason.
+ */
+final class RateTimetable {
+
+    private static final double GOLDEN_FRACTION = 0.6180339887498949;
+
+    /**
+     * Per-job dispatch state, owned by a subsystem or command slot.
+     */
+    static final class Entry {
+        ExecutionRate rate = ExecutionRate.EVERY_CYCLE;
+        int phase;
+        long nextDueNanos;
+        boolean active;
+    }
+
+    private Entry[] cycleJobs = new Entry[8];
+    private int cycleJobCount;
+    private long timeJobCount;
+
+    /**
+     * Sets a job's rate and picks its phase.
+     */
+    void assign(Entry entry, ExecutionRate rate, long cycle, long nowNanos) {
+        release(entry);
+        entry.rate = rate;
+        entry.phase = 0;
+        entry.active = true;
+
+        if (rate.isCycleBased()) {
+            if (rate.getCycleDivider() > 1) {
+                entry.phase = leastLoadedPhase(rate.getCycleDivider(), cycle);
+                if (cycleJobCount == cycleJobs.length) {
+                    cycleJobs = Arrays.copyOf(cycleJobs, cycleJobCount * 2);
+                }
+                cycleJobs[cycleJobCount++] = entry;
+            }
+        } else {
+            double fraction = (timeJobCount++ * GOLDEN_FRACTION) % 1.0;
+            entry.nextDueNanos = nowNanos + (long) (fraction * rate.getPeriodNanos());
+        }
+    }
+
+    /**
+     * Forgets a job so it no longer counts towards phase load.
+     */
+    void release(Entry entry) {
+        if (!entry.active) {
+            return;
+        }
+        entry.active = false;
+        for (int i = 0; i < cycleJobCount; i++) {
+            if (cycleJobs[i] == entry) {
+                cycleJobs[i] = cycleJobs[--cycleJobCount];
+                cycleJobs[cycleJobCount] = null;
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return true when the job should run this cycle; advances time-based jobs
+     */
+    boolean isDue(Entry entry, long cycle, long nowNanos) {
+        ExecutionRate rate = entry.rate;
+        if (rate.isCycleBased()) {
+            int divider = rate.getCycleDivider();
+            return divider == 1 || cycle % divider == entry.phase;
+        }
+        if (nowNanos < entry.nextDueNanos) {
+            return false;
+        }
+        entry.nextDueNanos += rate.getPeriodNanos();
+        if (entry.nextDueNanos <= nowNanos) {
+            // Fell behind; skip missed slots instead of bursting to catch up.
+            entry.nextDueNanos = nowNanos + rate.getPeriodNanos();
+        }
+        return true;
+    }
+
+    void clear() {
+        Arrays.fill(cycleJobs, 0, cycleJobCount, null);
+        cycleJobCount = 0;
+        timeJobCount = 0;
+    }
+
+    /**
+     * Picks the phase in [0, divider) that coincides with the fewest existing
+     * cycle-based jobs, preferring the earliest upcoming cycle on ties.
+     */
+    private int leastLoadedPhase(int divider, long cycle) {
+        int first = (int) ((cycle + 1) % divider);
+        int bestPhase = first;
+        int bestLoad = Integer.MAX_VALUE;
+        for (int offset = 0; offset < divider; offset++) {
+            int phase = (first + offset) % divider;
+            int load = 0;
+            for (int i = 0; i < cycleJobCount; i++) {
+                Entry other = cycleJobs[i];
+                int gcd = gcd(divider, other.rate.getCycleDivider());
+                if ((phase - other.phase) % gcd == 0) {
+                    load++;
+                }
+            }
+            if (load < bestLoad) {
+                bestLoad = load;
+                bestPhase = phase;
+            }
+        }
+        return bestPhase;
+    }
+
+    private static int gcd(int a, int b) {
+        while (b != 0) {
+            int t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+}
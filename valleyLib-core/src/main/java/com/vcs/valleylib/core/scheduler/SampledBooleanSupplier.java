@@ -0,0 +1,46 @@
+package com.vcs.valleylib.core.scheduler;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * {@link BooleanSupplier} that reads its source at most once per scheduler cycle.
+ *
+ * The first read after {@link CommandScheduler#run()} starts a cycle samples
+ * the source; every later read until the next cycle returns the same value.
+ * Wrap an expensive input, such as an I2C sensor or {@code follower.isBusy()},
+ * once and pass the wrapper to every {@code until()}, {@code WaitUntilCommand}
+ * or trigger that needs it.
+ *
+ * Reads made between two {@code run()} calls, such as trigger polling before
+ * {@code run()}, share the sample of the cycle that started last.
+ * Loop thread only.
+ */
+public final class SampledBooleanSupplier implements BooleanSupplier {
+
+    private final CommandScheduler scheduler;
+    private final BooleanSupplier source;
+    private long sampledEpoch = -1;
+    private boolean value;
+
+    public SampledBooleanSupplier(CommandScheduler scheduler, BooleanSupplier source) {
+        this.scheduler = scheduler;
+        this.source = source;
+    }
+
+    /**
+     * Samples once per cycle of the shared {@link CommandScheduler#getInstance()}.
+     */
+    public static SampledBooleanSupplier of(BooleanSupplier source) {
+        return new SampledBooleanSupplier(CommandScheduler.getInstance(), source);
+    }
+
+    @Override
+    public boolean getAsBoolean() {
+        long epoch = scheduler.getSampleEpoch();
+        if (epoch != sampledEpoch) {
+            value = source.getAsBoolean();
+            sampledEpoch = epoch;
+        }
+        return value;
+    }
+}
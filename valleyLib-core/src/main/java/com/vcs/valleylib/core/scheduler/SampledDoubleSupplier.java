@@ -0,0 +1,44 @@
+package com.vcs.valleylib.core.scheduler;
+
+import java.util.function.DoubleSupplier;
+
+/**
+ * {@link DoubleSupplier} that reads its source at most once per scheduler cycle.
+ *
+ * The first read after {@link CommandScheduler#run()} starts a cycle samples
+ * the source; every later read until the next cycle returns the same value.
+ * Share one wrapper around an expensive input, such as a distance sensor,
+ * between every command and condition that reads it.
+ *
+ * Like {@link SampledBooleanSupplier}, reads between two {@code run()} calls
+ * share the sample of the cycle that started last. Loop thread only.
+ */
+public final class SampledDoubleSupplier implements DoubleSupplier {
+
+    private final CommandScheduler scheduler;
+    private final DoubleSupplier source;
+    private long sampledEpoch = -1;
+    private double value;
+
+    public SampledDoubleSupplier(CommandScheduler scheduler, DoubleSupplier source) {
+        this.scheduler = scheduler;
+        this.source = source;
+    }
+
+    /**
+     * Samples once per cycle of the shared {@link CommandScheduler#getInstance()}.
+     */
+    public static SampledDoubleSupplier of(DoubleSupplier source) {
+        return new SampledDoubleSupplier(CommandScheduler.getInstance(), source);
+    }
+
+    @Override
+    public double getAsDouble() {
+        long epoch = scheduler.getSampleEpoch();
+        if (epoch != sampledEpoch) {
+            value = source.getAsDouble();
+            sampledEpoch = epoch;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,42 @@
+package com.vcs.valleylib.core.scheduler;
+
+import com.vcs.valleylib.core.command.Command;
+
+/**
+ * Per-command runtime state held by the scheduler while a command is scheduled.
+ *
+ * Instances are pooled and reused, so scheduling does not allocate once the
+ * pool has grown to the peak number of concurrent commands.
+ */
+final class ScheduledCommand {
+
+    Command command;
+    long requirementMask;
+    long heldMask;
+    boolean composite;
+    long childrenVersion;
+    boolean bestEffort;
+    long scheduledNanos;
+    boolean started;
+    LatencyHistogram[] profile;
+    final RateTimetable.Entry rate = new RateTimetable.Entry();
+
+    // Timer wheel state while the command is parked.
+    int parkedIndex = -1;
+    long wakeTick;
+    int wheelBucket = -1;
+    ScheduledCommand wheelNext;
+    ScheduledCommand wheelPrev;
+
+    void clear() {
+        command = null;
+        requirementMask = 0;
+        heldMask = 0;
+        composite = false;
+        childrenVersion = 0;
+        bestEffort = false;
+        scheduledNanos = 0;
+        started = false;
+        profile = null;
+    }
+}
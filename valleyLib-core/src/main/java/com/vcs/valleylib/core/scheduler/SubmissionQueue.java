@@ -0,0 +1,77 @@
+package com.vcs.valleylib.core.scheduler;
+
+import com.vcs.valleylib.core.command.Command;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Lock-free multi-producer/single-consumer queue of scheduler requests.
+ *
+ * Producers on any thread link a node with a single atomic swap of the tail;
+ * the loop thread is the only consumer and walks from the head without any
+ * atomic operations. A producer that has swapped the tail but not yet linked
+ * its node simply makes the consumer stop early; the rest is picked up on the
+ * next drain.
+ */
+final class SubmissionQueue {
+
+    static final int SCHEDULE = 0;
+    static final int CANCEL = 1;
+    static final int RUN = 2;
+
+    static final class Node {
+        int kind;
+        Command command;
+        Runnable action;
+        volatile Node next;
+
+        Node(int kind, Command command, Runnable action) {
+            this.kind = kind;
+            this.command = command;
+            this.action = action;
+        }
+    }
+
+    private final AtomicReference<Node> tail;
+    private Node head;
+
+    SubmissionQueue() {
+        Node stub = new Node(-1, null, null);
+        head = stub;
+        tail = new AtomicReference<>(stub);
+    }
+
+    /**
+     * Appends a request. Safe to call from any thread.
+     */
+    void offer(int kind, Command command, Runnable action) {
+        Node node = new Node(kind, command, action);
+        Node previous = tail.getAndSet(node);
+        previous.next = node;
+    }
+
+    /**
+     * Removes the oldest linked request. Loop thread only.
+     *
+     * The returned node becomes the queue's new stub, so callers must read
+     * its payload before the next poll and then call {@link #release(Node)}.
+     *
+     * @return the next request, or null when none is linked yet
+     */
+    Node poll() {
+        Node next = head.next;
+        if (next == null) {
+            return null;
+        }
+        head = next;
+        return next;
+    }
+
+    /**
+     * Drops payload references from a consumed node that now serves as the stub.
+     */
+    void release(Node node) {
+        node.command = null;
+        node.action = null;
+    }
+}
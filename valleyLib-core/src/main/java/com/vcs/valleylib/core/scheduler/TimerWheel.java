@@ -0,0 +1,219 @@
+package com.vcs.valleylib.core.scheduler;
+
+/**
+ * Hierarchical timer wheel holding parked commands until their wake time.
+ *
+ * Time is divided into ticks of 2^20 ns (about 1 ms). Four levels of 64
+ * buckets cover about 1 ms, 67 ms, 4.3 s and 4.6 min per bucket; a command is
+ * filed in the lowest level whose span covers its delay and moves down a
+ * level each time the level below wraps around, in the classic cascading
+ * scheme. Buckets are intrusive doubly linked lists threaded through
+ * {@link ScheduledCommand}, so parking, waking and canceling never allocate
+ * and cost O(1) per command, independent of how many others are parked.
+ *
+ * A command may wake up to one tick early, never late.
+ */
+final class TimerWheel {
+
+    private static final int TICK_SHIFT = 20;
+    private static final int LEVEL_BITS = 6;
+    private static final int BUCKETS_PER_LEVEL = 1 << LEVEL_BITS;
+    private static final int LEVELS = 4;
+    private static final long MAX_DELAY_TICKS = (1L << (LEVEL_BITS * LEVELS)) - 1;
+
+    private final ScheduledCommand[] heads = new ScheduledCommand[LEVELS * BUCKETS_PER_LEVEL];
+    private final int[] levelCounts = new int[LEVELS];
+    private int count;
+    private long originNanos;
+    private long currentTick;
+    private ScheduledCommand expiredHead;
+    private ScheduledCommand expiredTail;
+
+    int size() {
+        return count;
+    }
+
+    /**
+     * Parks a slot until the given clock time.
+     */
+    void insert(ScheduledCommand slot, long wakeNanos, long nowNanos) {
+        if (count == 0) {
+            originNanos = nowNanos;
+            currentTick = 0;
+        }
+        long tick = (wakeNanos - originNanos) >> TICK_SHIFT;
+        slot.wakeTick = Math.max(tick, currentTick + 1);
+        file(slot);
+        count++;
+    }
+
+    /**
+     * Unparks a slot before its wake time.
+     */
+    void remove(ScheduledCommand slot) {
+        unlink(slot);
+        count--;
+    }
+
+    /**
+     * Advances the wheel to the given clock time.
+     *
+     * @return chain of expired slots linked through {@code wheelNext}, or null
+     */
+    ScheduledCommand advance(long nowNanos) {
+        expiredHead = null;
+        expiredTail = null;
+        long nowTick = (nowNanos - originNanos) >> TICK_SHIFT;
+        if (nowTick < currentTick) {
+            // The clock went backwards (for example a new time source): wake everything.
+            expireAll();
+        }
+        while (currentTick < nowTick && count > 0) {
+            if (levelCounts[0] == 0) {
+                // Nothing on level 0: skip straight to the next level-1 boundary.
+                long boundary = currentTick | (BUCKETS_PER_LEVEL - 1);
+                if (boundary >= nowTick) {
+                    break;
+                }
+                currentTick = boundary;
+            }
+            currentTick++;
+            int index = (int) (currentTick & (BUCKETS_PER_LEVEL - 1));
+            if (index == 0) {
+                cascade(1);
+            }
+            expireBucket(index);
+        }
+        if (currentTick < nowTick) {
+            currentTick = nowTick;
+        }
+        ScheduledCommand expired = expiredHead;
+        expiredHead = null;
+        expiredTail = null;
+        return expired;
+    }
+
+    /**
+     * Drops every parked slot without waking it.
+     */
+    void clear() {
+        for (int i = 0; i < heads.length; i++) {
+            ScheduledCommand slot = heads[i];
+            while (slot != null) {
+                ScheduledCommand next = slot.wheelNext;
+                slot.wheelNext = null;
+                slot.wheelPrev = null;
+                slot.wheelBucket = -1;
+                slot = next;
+            }
+            heads[i] = null;
+        }
+        for (int level = 0; level < LEVELS; level++) {
+            levelCounts[level] = 0;
+        }
+        count = 0;
+    }
+
+    private void cascade(int level) {
+        int index = (int) ((currentTick >>> (LEVEL_BITS * level)) & (BUCKETS_PER_LEVEL - 1));
+        if (index == 0 && level + 1 < LEVELS) {
+            cascade(level + 1);
+        }
+        int bucket = level * BUCKETS_PER_LEVEL + index;
+        ScheduledCommand slot = heads[bucket];
+        heads[bucket] = null;
+        while (slot != null) {
+            ScheduledCommand next = slot.wheelNext;
+            levelCounts[level]--;
+            slot.wheelNext = null;
+            slot.wheelPrev = null;
+            if (slot.wakeTick <= currentTick) {
+                slot.wheelBucket = -1;
+                count--;
+                appendExpired(slot);
+            } else {
+                file(slot);
+            }
+            slot = next;
+        }
+    }
+
+    private void expireBucket(int index) {
+        ScheduledCommand slot = heads[index];
+        heads[index] = null;
+        while (slot != null) {
+            ScheduledCommand next = slot.wheelNext;
+            levelCounts[0]--;
+            count--;
+            slot.wheelNext = null;
+            slot.wheelPrev = null;
+            slot.wheelBucket = -1;
+            appendExpired(slot);
+            slot = next;
+        }
+    }
+
+    private void expireAll() {
+        for (int bucket = 0; bucket < heads.length; bucket++) {
+            ScheduledCommand slot = heads[bucket];
+            heads[bucket] = null;
+            while (slot != null) {
+                ScheduledCommand next = slot.wheelNext;
+                slot.wheelNext = null;
+                slot.wheelPrev = null;
+                slot.wheelBucket = -1;
+                appendExpired(slot);
+                slot = next;
+            }
+        }
+        for (int level = 0; level < LEVELS; level++) {
+            levelCounts[level] = 0;
+        }
+        count = 0;
+    }
+
+    private void file(ScheduledCommand slot) {
+        long delay = Math.min(slot.wakeTick - currentTick, MAX_DELAY_TICKS);
+        long tick = currentTick + delay;
+        int level = 0;
+        while (level + 1 < LEVELS && delay >= 1L << (LEVEL_BITS * (level + 1))) {
+            level++;
+        }
+        int index = (int) ((tick >>> (LEVEL_BITS * level)) & (BUCKETS_PER_LEVEL - 1));
+        int bucket = level * BUCKETS_PER_LEVEL + index;
+        ScheduledCommand head = heads[bucket];
+        slot.wheelNext = head;
+        slot.wheelPrev = null;
+        if (head != null) {
+            head.wheelPrev = slot;
+        }
+        heads[bucket] = slot;
+        slot.wheelBucket = bucket;
+        levelCounts[level]++;
+    }
+
+    private void unlink(ScheduledCommand slot) {
+        int bucket = slot.wheelBucket;
+        if (slot.wheelPrev != null) {
+            slot.wheelPrev.wheelNext = slot.wheelNext;
+        } else {
+            heads[bucket] = slot.wheelNext;
+        }
+        if (slot.wheelNext != null) {
+            slot.wheelNext.wheelPrev = slot.wheelPrev;
+        }
+        levelCounts[bucket / BUCKETS_PER_LEVEL]--;
+        slot.wheelNext = null;
+        slot.wheelPrev = null;
+        slot.wheelBucket = -1;
+    }
+
+    private void appendExpired(ScheduledCommand slot) {
+        if (expiredTail == null) {
+            expiredHead = slot;
+        } else {
+            expiredTail.wheelNext = slot;
+        }
+        expiredTail = slot;
+    }
+}
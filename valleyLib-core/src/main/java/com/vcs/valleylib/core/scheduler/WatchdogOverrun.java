@@ -0,0 +1,79 @@
+package com.vcs.valleylib.core.scheduler;
+
+/**
+ * One command or subsystem callback that ran longer than the watchdog threshold.
+ */
+public final class WatchdogOverrun {
+
+    private final Object source;
+    private final ProfiledPhase phase;
+    private final long durationNanos;
+    private final long timestampNanos;
+    private final StackTraceElement[] stackTrace;
+
+    WatchdogOverrun(Object source, ProfiledPhase phase, long durationNanos, long timestampNanos,
+                    StackTraceElement[] stackTrace) {
+        this.source = source;
+        this.phase = phase;
+        this.durationNanos = durationNanos;
+        this.timestampNanos = timestampNanos;
+        this.stackTrace = stackTrace;
+    }
+
+    /**
+     * @return the command or subsystem that overran
+     */
+    public Object getSource() {
+        return source;
+    }
+
+    public String getName() {
+        String name = source.getClass().getSimpleName();
+        return name.isEmpty() ? source.getClass().getName() : name;
+    }
+
+    public ProfiledPhase getPhase() {
+        return phase;
+    }
+
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    /**
+     * @return {@link System#nanoTime()} when the callback returned
+     */
+    public long getTimestampNanos() {
+        return timestampNanos;
+    }
+
+    /**
+     * @return loop thread stack captured while the callback was still running,
+     * or null when no sampler was running or it did not catch the overrun in time
+     */
+    public StackTraceElement[] getStackTrace() {
+        return stackTrace;
+    }
+
+    /**
+     * Formats the overrun with up to the given number of captured stack frames.
+     *
+     * @param maxFrames frames to include, innermost first
+     * @return multi-line description
+     */
+    public String describe(int maxFrames) {
+        StringBuilder text = new StringBuilder(toString());
+        if (stackTrace != null) {
+            int frames = Math.min(maxFrames, stackTrace.length);
+            for (int i = 0; i < frames; i++) {
+                text.append("\n    at ").append(stackTrace[i]);
+            }
+        }
+        return text.toString();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s.%s took %.1fms", getName(), phase.name().toLowerCase(), durationNanos / 1e6);
+    }
+}
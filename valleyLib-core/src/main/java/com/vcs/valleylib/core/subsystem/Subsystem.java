@@ -1,6 +1,8 @@
 package com.vcs.valleylib.core.subsystem;
 
 import com.vcs.valleylib.core.command.Command;
+import com.vcs.valleylib.core.scheduler.ExecutionRate;
+import com.vcs.valleylib.core.scheduler.Priority;
 
 /**
  * Base class for all robot subsystems.
@@ -16,6 +18,9 @@ import com.vcs.valleylib.core.command.Command;
 public abstract class Subsystem {
 
     private Command defaultCommand;
+    private Priority priority = Priority.CRITICAL;
+    private ExecutionRate executionRate = ExecutionRate.EVERY_CYCLE;
+    private boolean independent;
 
     /**
      * Called every scheduler cycle, regardless of active commands.
@@ -48,4 +53,65 @@ public abstract class Subsystem {
     public Command getDefaultCommand() {
         return defaultCommand;
     }
+
+    /**
+     * Sets the execution lane for this subsystem's periodic method when the
+     * scheduler has a cycle budget.
+     *
+     * Example: vision post-processing as {@link Priority#BEST_EFFORT}.
+     *
+     * @param priority execution lane
+     */
+    public void setPriority(Priority priority) {
+        this.priority = priority;
+    }
+
+    /**
+     * @return the subsystem's execution lane, {@link Priority#CRITICAL} by default
+     */
+    public Priority getPriority() {
+        return priority;
+    }
+
+    /**
+     * Sets how often the scheduler calls {@link #periodic()}.
+     *
+     * Example: {@code setExecutionRate(ExecutionRate.hz(50))} for a color sensor
+     * that does not need reading every loop.
+     *
+     * @param rate dispatch rate
+     */
+    public void setExecutionRate(ExecutionRate rate) {
+        this.executionRate = rate;
+    }
+
+    /**
+     * @return the periodic dispatch rate, {@link ExecutionRate#EVERY_CYCLE} by default
+     */
+    public ExecutionRate getExecutionRate() {
+        return executionRate;
+    }
+
+    /**
+     * Marks this subsystem's periodic method as safe to run on a scheduler
+     * worker thread, alongside other independent subsystems.
+     *
+     * Only mark subsystems whose periodic method touches nothing but their own
+     * state and hardware, such as vision decoding or odometry integration.
+     * Commands still see the results on the loop thread, because the
+     * scheduler joins all workers before executing commands.
+     *
+     * @param independent true to allow parallel periodic execution
+     * @see com.vcs.valleylib.core.scheduler.CommandScheduler#setParallelPeriodicThreads(int)
+     */
+    public void setIndependent(boolean independent) {
+        this.independent = independent;
+    }
+
+    /**
+     * @return whether periodic may run on a scheduler worker thread
+     */
+    public boolean isIndependent() {
+        return independent;
+    }
 }
@@ -0,0 +1,213 @@
+package com.vcs.valleylib.core.time;
+
+/**
+ * Monotonic clock sampled once per scheduler cycle.
+ *
+ * {@code CommandScheduler.run()} calls {@link #update()} at the start of every
+ * cycle, so every command, decorator and trigger in that cycle reads the same
+ * timestamp and the time source is queried once instead of once per reader.
+ * The clock also measures {@link #getDtSeconds() dt}, the time between the
+ * last two cycles.
+ *
+ * Commands reach the clock of the scheduler running them through
+ * {@link #current()}. Swap the {@link TimeSource} for a
+ * {@link VirtualTimeSource} to control time in tests.
+ *
+ * While a scheduler with a cycle budget is running, the clock also carries the
+ * deadline of the current cycle, so work that can be split up (see
+ * {@code IncrementalCommand}) can stop when the cycle's time is used up.
+ */
+public final class LoopClock {
+
+    private static final ThreadLocal<LoopClock> CURRENT = new ThreadLocal<>();
+    private static final ThreadLocal<LoopClock> FALLBACK = new ThreadLocal<>();
+
+    private TimeSource source;
+    private long nowNanos;
+    private long lastUpdateNanos;
+    private long dtNanos;
+    private boolean updated;
+    private boolean held;
+    private long cycleDeadlineNanos;
+    private boolean hasCycleDeadline;
+
+    /**
+     * Creates a clock backed by {@link TimeSource#SYSTEM}.
+     */
+    public LoopClock() {
+        this(TimeSource.SYSTEM);
+    }
+
+    public LoopClock(TimeSource source) {
+        setTimeSource(source);
+    }
+
+    /**
+     * Returns the clock of the scheduler that last ran or scheduled a command
+     * on the calling thread.
+     *
+     * On a thread no scheduler has touched yet, returns a thread-local system
+     * clock that is re-sampled on every call.
+     *
+     * @return clock for time-based commands on this thread
+     */
+    public static LoopClock current() {
+        LoopClock clock = CURRENT.get();
+        if (clock != null) {
+            return clock;
+        }
+        LoopClock fallback = FALLBACK.get();
+        if (fallback == null) {
+            fallback = new LoopClock();
+            FALLBACK.set(fallback);
+        }
+        fallback.resync();
+        return fallback;
+    }
+
+    /**
+     * Makes this clock the one {@link #current()} returns on the calling thread.
+     */
+    public void makeCurrent() {
+        if (CURRENT.get() != this) {
+            CURRENT.set(this);
+        }
+    }
+
+    /**
+     * Replaces the time source and re-samples the clock. The next {@link #update()}
+     * reports a dt of zero.
+     *
+     * @param source new time source
+     */
+    public void setTimeSource(TimeSource source) {
+        if (source == null) {
+            throw new IllegalArgumentException("source must not be null");
+        }
+        this.source = source;
+        nowNanos = source.nanoTime();
+        dtNanos = 0;
+        updated = false;
+        held = false;
+    }
+
+    public TimeSource getTimeSource() {
+        return source;
+    }
+
+    /**
+     * Samples the time source for a new cycle and measures dt since the previous one.
+     * Called by the scheduler at the start of every {@code run()}.
+     */
+    public void update() {
+        update(source.nanoTime());
+    }
+
+    /**
+     * Starts a new cycle at a timestamp the caller already read with
+     * {@link #sampleNanos()}, and measures dt since the previous one.
+     *
+     * @param nowNanos timestamp of the new cycle on this clock's timeline
+     */
+    public void update(long nowNanos) {
+        this.nowNanos = nowNanos;
+        dtNanos = updated ? nowNanos - lastUpdateNanos : 0;
+        lastUpdateNanos = nowNanos;
+        updated = true;
+        held = false;
+    }
+
+    /**
+     * Re-samples the timestamp without starting a new cycle, leaving dt unchanged.
+     * Used when commands are scheduled between cycles. Does nothing while the
+     * timestamp is {@link #hold(long) held}.
+     */
+    public void resync() {
+        if (!held) {
+            nowNanos = source.nanoTime();
+        }
+    }
+
+    /**
+     * Sets the timestamp of the cycle that is about to start and keeps it until
+     * the next {@link #update(long)}, so work done before the scheduler runs in
+     * the same loop, such as trigger polling, reads that timestamp even when it
+     * schedules commands.
+     *
+     * @param nowNanos timestamp of the upcoming cycle on this clock's timeline
+     */
+    public void hold(long nowNanos) {
+        this.nowNanos = nowNanos;
+        held = true;
+    }
+
+    /**
+     * Reads the time source now, without changing the cycle timestamp.
+     * Use it to measure time spent inside a cycle.
+     *
+     * @return current time on this clock's timeline in nanoseconds
+     */
+    public long sampleNanos() {
+        return source.nanoTime();
+    }
+
+    /**
+     * Sets the time, on this clock's timeline, by which the current cycle should
+     * finish. Called by the scheduler at the start of a budgeted {@code run()}.
+     *
+     * @param deadlineNanos end of the current cycle's budget
+     */
+    public void setCycleDeadline(long deadlineNanos) {
+        cycleDeadlineNanos = deadlineNanos;
+        hasCycleDeadline = true;
+    }
+
+    /**
+     * Removes the cycle deadline. Called by the scheduler when {@code run()} returns.
+     */
+    public void clearCycleDeadline() {
+        hasCycleDeadline = false;
+    }
+
+    /**
+     * @return true while a budgeted scheduler cycle is running
+     */
+    public boolean hasCycleDeadline() {
+        return hasCycleDeadline;
+    }
+
+    /**
+     * @return end of the current cycle's budget, valid while {@link #hasCycleDeadline()}
+     */
+    public long getCycleDeadlineNanos() {
+        return cycleDeadlineNanos;
+    }
+
+    /**
+     * @return timestamp of the current cycle in nanoseconds
+     */
+    public long getNanos() {
+        return nowNanos;
+    }
+
+    /**
+     * @return timestamp of the current cycle in seconds
+     */
+    public double getSeconds() {
+        return nowNanos / 1e9;
+    }
+
+    /**
+     * @return time between the last two cycles in nanoseconds, 0 before the second cycle
+     */
+    public long getDtNanos() {
+        return dtNanos;
+    }
+
+    /**
+     * @return time between the last two cycles in seconds, 0 before the second cycle
+     */
+    public double getDtSeconds() {
+        return dtNanos / 1e9;
+    }
+}
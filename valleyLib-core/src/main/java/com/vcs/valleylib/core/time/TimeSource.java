@@ -0,0 +1,18 @@
+package com.vcs.valleylib.core.time;
+
+/**
+ * Monotonic nanosecond time source behind a {@link LoopClock}.
+ */
+@FunctionalInterface
+public interface TimeSource {
+
+    /**
+     * Wall-clock monotonic time from {@link System#nanoTime()}.
+     */
+    TimeSource SYSTEM = System::nanoTime;
+
+    /**
+     * @return current time in nanoseconds; only differences are meaningful
+     */
+    long nanoTime();
+}
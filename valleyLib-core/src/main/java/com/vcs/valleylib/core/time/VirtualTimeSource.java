@@ -0,0 +1,48 @@
+package com.vcs.valleylib.core.time;
+
+/**
+ * Manually advanced {@link TimeSource} for tests and simulation.
+ *
+ * Time only moves when {@link #advance(double)} or {@link #advanceNanos(long)}
+ * is called, so time-based commands behave identically on every run regardless
+ * of how fast the host executes them.
+ */
+public final class VirtualTimeSource implements TimeSource {
+
+    private long nanos;
+
+    public VirtualTimeSource() {}
+
+    /**
+     * @param startNanos initial time in nanoseconds
+     */
+    public VirtualTimeSource(long startNanos) {
+        this.nanos = startNanos;
+    }
+
+    /**
+     * Moves time forward.
+     *
+     * @param seconds amount of time to add, not negative
+     */
+    public void advance(double seconds) {
+        advanceNanos((long) (seconds * 1_000_000_000L));
+    }
+
+    /**
+     * Moves time forward.
+     *
+     * @param deltaNanos amount of time to add, not negative
+     */
+    public void advanceNanos(long deltaNanos) {
+        if (deltaNanos < 0) {
+            throw new IllegalArgumentException("virtual time cannot go backwards");
+        }
+        nanos += deltaNanos;
+    }
+
+    @Override
+    public long nanoTime() {
+        return nanos;
+    }
+}
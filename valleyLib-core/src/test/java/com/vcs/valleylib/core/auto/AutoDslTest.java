@@ -46,6 +46,30 @@ class AutoDslTest {
         assertEquals(List.of("start", "added", "if-false"), events);
     }
 
+    @Test
+    void deferredEitherBuildsOnlyTheSelectedBranch() {
+        List<String> events = new ArrayList<>();
+        AtomicBoolean branch = new AtomicBoolean(false);
+
+        Command auto = AutoDsl.auto(builder -> builder
+                .run(() -> branch.set(true))
+                .eitherDeferred(branch::get,
+                        () -> {
+                            events.add("built-true");
+                            return new OneShotCommand(() -> events.add("ran-true"));
+                        },
+                        () -> {
+                            events.add("built-false");
+                            return new OneShotCommand(() -> events.add("ran-false"));
+                        })
+        );
+        assertEquals(List.of(), events);
+
+        runToCompletion(auto);
+
+        assertEquals(List.of("built-true", "ran-true"), events);
+    }
+
     @Test
     void autoBuilderSupportsConditionalsAndMarkers() {
         List<String> events = new ArrayList<>();
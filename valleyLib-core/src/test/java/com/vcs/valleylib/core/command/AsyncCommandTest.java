@@ -0,0 +1,139 @@
+package com.vcs.valleylib.core.command;
+
+import com.vcs.valleylib.core.scheduler.CommandScheduler;
+import com.vcs.valleylib.core.subsystem.Subsystem;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AsyncCommandTest {
+
+    @AfterEach
+    void tearDown() {
+        CommandScheduler.getInstance().reset();
+    }
+
+    @Test
+    void resultIsHandedToContinuation() throws InterruptedException {
+        CommandScheduler scheduler = CommandScheduler.getInstance();
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger received = new AtomicInteger();
+
+        Command command = Commands.async(() -> {
+            release.await();
+            return 42;
+        }, value -> Commands.runOnce(() -> received.set(value)));
+
+        scheduler.schedule(command);
+        scheduler.run();
+        assertTrue(scheduler.isScheduled(command));
+
+        release.countDown();
+        for (int i = 0; i < 200 && scheduler.isScheduled(command); i++) {
+            Thread.sleep(5);
+            scheduler.run();
+        }
+
+        assertFalse(scheduler.isScheduled(command));
+        assertEquals(42, received.get());
+    }
+
+    @Test
+    void interruptCancelsBackgroundWork() throws InterruptedException {
+        CommandScheduler scheduler = CommandScheduler.getInstance();
+        TestSubsystem drive = new TestSubsystem();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        AtomicBoolean continuationBuilt = new AtomicBoolean();
+
+        Command command = new AsyncCommand<>(() -> {
+            started.countDown();
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return "path";
+        }, path -> {
+            continuationBuilt.set(true);
+            return Commands.none();
+        }, drive);
+
+        scheduler.schedule(command);
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+
+        scheduler.schedule(new RequiresCommand(drive));
+
+        assertFalse(scheduler.isScheduled(command));
+        assertTrue(interrupted.await(1, TimeUnit.SECONDS));
+        assertFalse(continuationBuilt.get());
+    }
+
+    @Test
+    void failedComputationEndsTheCommandAndLeavesTheSchedulerUsable() throws InterruptedException {
+        CommandScheduler scheduler = CommandScheduler.getInstance();
+        IllegalArgumentException failure = new IllegalArgumentException("no path");
+        AtomicBoolean continuationBuilt = new AtomicBoolean();
+        AsyncCommand<Integer> command = new AsyncCommand<>(() -> {
+            throw failure;
+        }, value -> {
+            continuationBuilt.set(true);
+            return Commands.none();
+        });
+
+        scheduler.schedule(command);
+        for (int i = 0; i < 200 && scheduler.isScheduled(command); i++) {
+            Thread.sleep(5);
+            scheduler.run();
+        }
+
+        assertFalse(scheduler.isScheduled(command));
+        assertSame(failure, command.getError());
+        assertFalse(command.hasResult());
+        assertFalse(continuationBuilt.get());
+
+        AtomicInteger later = new AtomicInteger();
+        scheduler.run();
+        scheduler.schedule(Commands.runOnce(later::incrementAndGet));
+        scheduler.flush();
+        assertEquals(1, later.get());
+    }
+
+    @Test
+    void requirementsMayRepeatASubsystem() {
+        TestSubsystem drive = new TestSubsystem();
+
+        Command command = Commands.async(() -> 1, value -> Commands.none(), drive, drive);
+
+        assertEquals(Set.of(drive), command.getRequirements());
+    }
+
+    private static class TestSubsystem extends Subsystem {}
+
+    private static class RequiresCommand implements Command {
+
+        private final Subsystem requirement;
+
+        private RequiresCommand(Subsystem requirement) {
+            this.requirement = requirement;
+        }
+
+        @Override
+        public void execute() {}
+
+        @Override
+        public Set<Subsystem> getRequirements() {
+            return Set.of(requirement);
+        }
+    }
+}
@@ -1,9 +1,15 @@
 package com.vcs.valleylib.core.command;
 
+import com.vcs.valleylib.core.scheduler.CommandScheduler;
+import com.vcs.valleylib.core.subsystem.Subsystem;
+import com.vcs.valleylib.core.time.TimeSource;
+import com.vcs.valleylib.core.time.VirtualTimeSource;
 import org.junit.jupiter.api.Test;
 
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -22,6 +28,53 @@ class CommandsFactoryTest {
         assertTrue(ended.get());
     }
 
+    @Test
+    void observeAcceptsTheSameSubsystemTwice() {
+        Subsystem drive = new Subsystem() {};
+
+        Command observer = Commands.observe(() -> {}, drive, drive);
+
+        assertEquals(Set.of(drive), observer.getSharedRequirements());
+    }
+
+    @Test
+    void deferAcceptsTheSameSubsystemTwice() {
+        Subsystem drive = new Subsystem() {};
+
+        Command deferred = Commands.defer(Commands::none, drive, drive);
+        Command memoized = Commands.deferOnce(Commands::none, drive, drive);
+
+        assertEquals(Set.of(drive), deferred.getRequirements());
+        assertEquals(Set.of(drive), memoized.getRequirements());
+    }
+
+    @Test
+    void deferBuildsOnEveryInitializeAndDeferOnceOnlyOnce() {
+        int[] builds = new int[2];
+        Command deferred = Commands.defer(() -> {
+            builds[0]++;
+            return Commands.none();
+        });
+        Command memoized = Commands.deferOnce(() -> {
+            builds[1]++;
+            return Commands.none();
+        });
+        assertEquals(0, builds[0]);
+
+        for (int i = 0; i < 3; i++) {
+            deferred.initialize();
+            deferred.execute();
+            assertTrue(deferred.isFinished());
+            deferred.end(false);
+            memoized.initialize();
+            memoized.execute();
+            memoized.end(false);
+        }
+
+        assertEquals(3, builds[0]);
+        assertEquals(1, builds[1]);
+    }
+
     @Test
     void waitUntilFinishesWhenConditionBecomesTrue() {
         AtomicBoolean condition = new AtomicBoolean(false);
@@ -34,4 +87,58 @@ class CommandsFactoryTest {
         condition.set(true);
         assertTrue(command.isFinished());
     }
+
+    @Test
+    void incrementalCommandSpreadsWorkAcrossCyclesWithinQuota() {
+        int[] remaining = {100};
+        IncrementalCommand command = new IncrementalCommand(0.002, () -> {
+            long start = System.nanoTime();
+            while (System.nanoTime() - start < 200_000L) {
+                Thread.onSpinWait();
+            }
+            return --remaining[0] > 0;
+        });
+
+        Command group = Commands.sequence(command, Commands.none());
+        group.initialize();
+        int cycles = 0;
+        while (!group.isFinished()) {
+            group.execute();
+            cycles++;
+        }
+
+        assertEquals(0, remaining[0]);
+        assertTrue(command.getCyclesUsed() > 1);
+        assertTrue(command.getCyclesUsed() < 100);
+        assertTrue(cycles >= command.getCyclesUsed());
+    }
+
+    @Test
+    void incrementalCommandStopsAtTheSchedulerCycleDeadline() {
+        assertEquals(3, stepsInFirstCycle(0.003, 0.010));
+        assertEquals(2, stepsInFirstCycle(0, 0.002));
+        assertEquals(2, stepsInFirstCycle(0.003, 0.002));
+    }
+
+    /**
+     * Runs one cycle of a job whose steps each take 1 ms of virtual time.
+     */
+    private static int stepsInFirstCycle(double budgetSeconds, double quotaSeconds) {
+        CommandScheduler scheduler = new CommandScheduler();
+        VirtualTimeSource time = new VirtualTimeSource();
+        scheduler.getClock().setTimeSource(time);
+        scheduler.setCycleBudget(budgetSeconds);
+        int[] steps = new int[1];
+        scheduler.schedule(Commands.incremental(quotaSeconds, () -> {
+            steps[0]++;
+            time.advance(0.001);
+            return steps[0] < 10;
+        }));
+
+        scheduler.run();
+        // This scheduler's clock stays current on the test thread.
+        scheduler.getClock().setTimeSource(TimeSource.SYSTEM);
+
+        return steps[0];
+    }
 }
@@ -1,12 +1,20 @@
 package com.vcs.valleylib.core.command.decorators;
 
 import com.vcs.valleylib.core.command.Command;
+import com.vcs.valleylib.core.scheduler.Priority;
 import com.vcs.valleylib.core.subsystem.Subsystem;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class CommandGroupTest {
 
@@ -23,6 +31,34 @@ class CommandGroupTest {
         assertEquals(2, second.initializeCalls);
     }
 
+    @Test
+    void plainWrappersFinishWithTheWrappedCommand() {
+        CountingCommand inner = new CountingCommand(2, Set.of());
+        List<String> calls = new ArrayList<>();
+        Command wrapped = new FinallyCommand(new BeforeStartingCommand(inner, () -> calls.add("before")),
+                () -> calls.add("finally"));
+
+        runToCompletion(wrapped);
+
+        assertEquals(2, inner.executeLoops);
+        assertEquals(List.of("before", "finally"), calls);
+    }
+
+    @Test
+    void repeatKeepsRunningWhenTheRestartedCommandIsAlreadyFinished() {
+        CountingCommand alreadyDone = new CountingCommand(0, Set.of());
+        Command repeat = alreadyDone.repeatedly();
+
+        repeat.initialize();
+        for (int i = 0; i < 3; i++) {
+            repeat.execute();
+            assertFalse(repeat.isFinished());
+        }
+
+        assertEquals(4, alreadyDone.initializeCalls);
+        assertEquals(3, alreadyDone.endCalls);
+    }
+
     @Test
     void parallelGroupEndsActiveCommandsOnInterrupt() {
         CountingCommand neverFinishes = new CountingCommand(Integer.MAX_VALUE, Set.of());
@@ -35,6 +71,73 @@ class CommandGroupTest {
         assertEquals(1, neverFinishes.interruptedEndCalls);
     }
 
+    @Test
+    void chainThroughRunsInstantChildrenInOneCycleUpToTheLimit() {
+        CountingCommand[] unchainedSteps = instantSteps(5);
+        SequentialCommandGroup unchained = new SequentialCommandGroup(unchainedSteps);
+        unchained.initialize();
+        unchained.execute();
+        assertEquals(1, unchainedSteps[1].initializeCalls);
+        assertEquals(0, unchainedSteps[1].executeLoops);
+
+        CountingCommand[] limitedSteps = instantSteps(5);
+        SequentialCommandGroup limited = new SequentialCommandGroup(limitedSteps).chainThrough(2, 0);
+        limited.initialize();
+        limited.execute();
+        assertEquals(1, limitedSteps[2].executeLoops);
+        assertEquals(1, limitedSteps[3].initializeCalls);
+        assertEquals(0, limitedSteps[3].executeLoops);
+        assertFalse(limited.isFinished());
+
+        SequentialCommandGroup chained = new SequentialCommandGroup(instantSteps(5)).chainThrough(10, 0.5);
+        chained.initialize();
+        chained.execute();
+        assertTrue(chained.isFinished());
+    }
+
+    @Test
+    void parallelGroupRunsRepeatedChildOnce() {
+        CountingCommand child = new CountingCommand(2, Set.of());
+        ParallelCommandGroup group = new ParallelCommandGroup(child, child);
+
+        runToCompletion(group);
+
+        assertEquals(1, child.initializeCalls);
+        assertEquals(2, child.executeLoops);
+    }
+
+    @Test
+    void raceInterruptsEveryChildOnceAnyFinishes() {
+        CountingCommand fast = new CountingCommand(2, Set.of());
+        CountingCommand slow = new CountingCommand(Integer.MAX_VALUE, Set.of());
+        RaceCommand race = new RaceCommand(slow, fast);
+
+        runToCompletion(race);
+
+        assertEquals(2, slow.executeLoops);
+        assertEquals(1, fast.interruptedEndCalls);
+        assertEquals(1, slow.interruptedEndCalls);
+    }
+
+    @Test
+    void deadlineKeepsExecutingFinishedChildrenUntilTheDeadlineEnds() {
+        CountingCommand deadline = new CountingCommand(3, Set.of());
+        CountingCommand quick = new CountingCommand(1, Set.of());
+        CountingCommand endless = new CountingCommand(Integer.MAX_VALUE, Set.of());
+        DeadlineCommand group = new DeadlineCommand(deadline, quick, endless);
+
+        runToCompletion(group);
+
+        assertEquals(3, quick.executeLoops);
+        assertEquals(1, quick.endCalls);
+        assertEquals(1, quick.interruptedEndCalls);
+        assertEquals(3, endless.executeLoops);
+        assertEquals(1, endless.endCalls);
+        assertEquals(1, endless.interruptedEndCalls);
+        assertEquals(1, deadline.endCalls);
+        assertEquals(0, deadline.interruptedEndCalls);
+    }
+
     @Test
     void groupsAggregateRequirements() {
         TestSubsystem subsystemA = new TestSubsystem();
@@ -50,6 +153,85 @@ class CommandGroupTest {
         assertEquals(Set.of(subsystemA, subsystemB), parallel.getRequirements());
     }
 
+    @Test
+    void groupsUnionSharedRequirementsWithoutExclusiveOnes() {
+        TestSubsystem drive = new TestSubsystem();
+        TestSubsystem vision = new TestSubsystem();
+        Command aim = new CountingCommand(1, Set.of()) {
+            @Override
+            public Set<Subsystem> getSharedRequirements() {
+                return Set.of(drive, vision);
+            }
+        };
+        CountingCommand driveCommand = new CountingCommand(1, Set.of(drive));
+
+        Command group = new ParallelCommandGroup(aim, driveCommand);
+
+        assertEquals(Set.of(drive), group.getRequirements());
+        assertEquals(Set.of(vision), group.getSharedRequirements());
+        assertEquals(Set.of(drive, vision), aim.withTimeout(1).getSharedRequirements());
+    }
+
+    @Test
+    void chainedCompositionBuildsFlatGroups() {
+        CountingCommand a = new CountingCommand(1, Set.of());
+        CountingCommand b = new CountingCommand(1, Set.of());
+        CountingCommand c = new CountingCommand(1, Set.of());
+        CountingCommand d = new CountingCommand(1, Set.of());
+
+        Command sequence = a.andThen(b).andThen(c).andThen(d);
+        Command parallel = a.alongWith(b).alongWith(c, d);
+        Command race = a.raceWith(b).raceWith(c);
+        Command mixed = a.alongWith(b).andThen(c);
+
+        assertArrayEquals(new Command[] {a, b, c, d}, ((SequentialCommandGroup) sequence).children());
+        assertArrayEquals(new Command[] {a, b, c, d}, ((ParallelCommandGroup) parallel).children());
+        assertArrayEquals(new Command[] {a, b, c}, ((RaceCommand) race).children());
+        assertEquals(2, ((SequentialCommandGroup) mixed).children().length);
+
+        runToCompletion(sequence);
+        assertEquals(1, d.initializeCalls);
+    }
+
+    @Test
+    void decoratorChainsFuseIntoOneWrapper() {
+        CountingCommand inner = new CountingCommand(Integer.MAX_VALUE, Set.of());
+        boolean[] stop = new boolean[1];
+        List<String> calls = new ArrayList<>();
+
+        Command decorated = inner
+                .withTimeout(10)
+                .until(() -> stop[0])
+                .beforeStarting(() -> calls.add("before 1"))
+                .beforeStarting(() -> calls.add("before 2"))
+                .finallyDo(() -> calls.add("finally 1"))
+                .finallyDo(() -> calls.add("finally 2"))
+                .withPriority(Priority.BEST_EFFORT);
+
+        DecoratedCommand fused = assertInstanceOf(DecoratedCommand.class, decorated);
+        assertSame(inner, fused.getInner());
+        assertEquals(Priority.BEST_EFFORT, decorated.getPriority());
+
+        decorated.initialize();
+        decorated.execute();
+        assertFalse(decorated.isFinished());
+        stop[0] = true;
+        decorated.execute();
+        assertTrue(decorated.isFinished());
+        decorated.end(false);
+
+        assertEquals(List.of("before 2", "before 1", "finally 1", "finally 2"), calls);
+        assertEquals(2, inner.executeLoops);
+    }
+
+    private static CountingCommand[] instantSteps(int count) {
+        CountingCommand[] steps = new CountingCommand[count];
+        for (int i = 0; i < count; i++) {
+            steps[i] = new CountingCommand(1, Set.of());
+        }
+        return steps;
+    }
+
     private static void runToCompletion(Command command) {
         command.initialize();
         while (!command.isFinished()) {
@@ -68,6 +250,7 @@ class CommandGroupTest {
         private int executeLoops;
         private int initializeCalls;
         private int interruptedEndCalls;
+        private int endCalls;
 
         private CountingCommand(int loopsToFinish, Set<Subsystem> requirements) {
             this.loopsToFinish = loopsToFinish;
@@ -87,6 +270,7 @@ class CommandGroupTest {
 
         @Override
         public void end(boolean interrupted) {
+            endCalls++;
             if (interrupted) {
                 interruptedEndCalls++;
             }
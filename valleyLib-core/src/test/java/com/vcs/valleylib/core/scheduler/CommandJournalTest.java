@@ -0,0 +1,73 @@
+package com.vcs.valleylib.core.scheduler;
+
+import com.vcs.valleylib.core.command.Command;
+import com.vcs.valleylib.core.command.Commands;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CommandJournalTest {
+
+    @Test
+    void capacityIsRoundedUpToAPowerOfTwo() {
+        assertEquals(8, new CommandJournal(5).getCapacity());
+        assertEquals(8, new CommandJournal(8).getCapacity());
+    }
+
+    @Test
+    void slowReaderSkipsOverwrittenEvents() {
+        CommandJournal journal = new CommandJournal(4);
+        CommandJournal.Cursor cursor = journal.newCursor();
+        Command command = Commands.none();
+
+        for (int i = 0; i < 10; i++) {
+            journal.record(JournalEventType.SCHEDULED, command, null, i, 0);
+        }
+
+        assertEquals(10, journal.getPublishedCount());
+        assertFalse(journal.read(5, new JournalEvent()));
+        JournalEvent event = cursor.next();
+        assertEquals(6, event.getSequence());
+        assertEquals(6, event.getTimestampNanos());
+        assertEquals(6, cursor.getMissed());
+        assertEquals(7, cursor.next().getSequence());
+        cursor.next();
+        cursor.next();
+        assertNull(cursor.next());
+    }
+
+    @Test
+    void concurrentReaderNeverSeesTornEvents() throws InterruptedException {
+        CommandJournal journal = new CommandJournal(8);
+        Command command = Commands.none();
+        int total = 200_000;
+        boolean[] consistent = {true};
+        long[] seen = new long[1];
+
+        Thread reader = new Thread(() -> {
+            CommandJournal.Cursor cursor = journal.newCursor();
+            while (cursor.getPosition() < total) {
+                JournalEvent event = cursor.next();
+                if (event == null) {
+                    continue;
+                }
+                seen[0]++;
+                if (event.getTimestampNanos() != event.getSequence()
+                        || event.getDurationNanos() != event.getSequence() * 3) {
+                    consistent[0] = false;
+                }
+            }
+        });
+        reader.start();
+        for (long i = 0; i < total; i++) {
+            journal.record(JournalEventType.FINISHED, command, null, i, i * 3);
+        }
+        reader.join();
+
+        assertTrue(consistent[0]);
+        assertTrue(seen[0] > 0);
+    }
+}
@@ -1,15 +1,30 @@
 package com.vcs.valleylib.core.scheduler;
 
+import com.sun.management.ThreadMXBean;
 import com.vcs.valleylib.core.command.Command;
+import com.vcs.valleylib.core.command.CommandWrapper;
+import com.vcs.valleylib.core.command.Commands;
+import com.vcs.valleylib.core.command.decorators.FinallyCommand;
+import com.vcs.valleylib.core.command.decorators.SequentialCommandGroup;
 import com.vcs.valleylib.core.subsystem.Subsystem;
+import com.vcs.valleylib.core.time.LoopClock;
+import com.vcs.valleylib.core.time.VirtualTimeSource;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 class CommandSchedulerTest {
 
@@ -50,6 +65,43 @@ class CommandSchedulerTest {
         assertEquals(1, defaultCommand.initializeCalls);
     }
 
+    @Test
+    void registerSubsystemAssignsDenseIds() {
+        CommandScheduler scheduler = CommandScheduler.getInstance();
+        TestSubsystem first = new TestSubsystem();
+        TestSubsystem second = new TestSubsystem();
+
+        scheduler.registerSubsystem(first);
+        scheduler.registerSubsystem(second);
+        scheduler.registerSubsystem(first);
+
+        assertEquals(0, scheduler.getSubsystemId(first));
+        assertEquals(1, scheduler.getSubsystemId(second));
+        assertEquals(-1, scheduler.getSubsystemId(new TestSubsystem()));
+    }
+
+    @Test
+    void conflictingCommandInterruptsOnlyOverlappingOwners() {
+        CommandScheduler scheduler = CommandScheduler.getInstance();
+        TestSubsystem drive = new TestSubsystem();
+        TestSubsystem intake = new TestSubsystem();
+        scheduler.registerSubsystem(drive);
+
+        CountingCommand driveCommand = new CountingCommand(Set.of(drive));
+        CountingCommand intakeCommand = new CountingCommand(Set.of(intake));
+        CountingCommand both = new CountingCommand(Set.of(drive, intake));
+
+        scheduler.schedule(driveCommand);
+        scheduler.schedule(intakeCommand);
+        assertTrue(scheduler.isScheduled(driveCommand));
+        assertTrue(scheduler.isScheduled(intakeCommand));
+
+        scheduler.schedule(both);
+        assertFalse(scheduler.isScheduled(driveCommand));
+        assertFalse(scheduler.isScheduled(intakeCommand));
+        assertTrue(scheduler.isScheduled(both));
+    }
+
     @Test
     void listenersReceiveScheduleFinishAndCancelCallbacks() {
         CommandScheduler scheduler = CommandScheduler.getInstance();
@@ -96,6 +148,782 @@ class CommandSchedulerTest {
         assertEquals(1, subsystem.periodicCalls);
     }
 
+    @Test
+    void commandCanCancelAnotherCommandDuringRun() {
+        CommandScheduler scheduler = CommandScheduler.getInstance();
+        CountingCommand victim = new CountingCommand(Set.of());
+        Command canceler = new Command() {
+            @Override
+            public void execute() {
+                scheduler.cancel(victim);
+            }
+        };
+
+        scheduler.schedule(canceler);
+        scheduler.schedule(victim);
+        scheduler.run();
+        scheduler.run();
+
+        assertFalse(scheduler.isScheduled(victim));
+        assertTrue(scheduler.isScheduled(canceler));
+    }
+
+    @Test
+    void bestEffortWorkIsDeferredOnceBudgetIsUsed() {
+        CommandScheduler scheduler = CommandScheduler.getInstance();
+        TestSubsystem diagnostics = new TestSubsystem();
+        diagnostics.setPriority(Priority.BEST_EFFORT);
+        scheduler.registerSubsystem(diagnostics);
+
+        CountingCommand telemetry = new CountingCommand(Set.of());
+        Command slowDrive = Commands.run(() -> {
+            long start = System.nanoTime();
+            while (System.nanoTime() - start < 2_000_000L) {
+                Thread.onSpinWait();
+            }
+        });
+
+        scheduler.setCycleBudget(0.001);
+        scheduler.schedule(slowDrive);
+        scheduler.schedule(telemetry.withPriority(Priority.BEST_EFFORT));
+        scheduler.run();
+
+        assertEquals(0, diagnostics.periodicCalls);
+        assertEquals(2, scheduler.getDeferredLastCycle());
+
+        scheduler.cancel(slowDrive);
+        scheduler.run();
+
+        assertEquals(1, diagnostics.periodicCalls);
+        assertEquals(0, scheduler.getDeferredLastCycle());
+    }
+
+    @Test
+    void subsystemsSharingARateRunOnDifferentCycles() {
+        CommandScheduler scheduler = CommandScheduler.getInstance();
+        TestSubsystem imu = new TestSubsystem();
+        TestSubsystem colorSensor = new TestSubsystem();
+        imu.setExecutionRate(ExecutionRate.everyNthCycle(2));
+        colorSensor.setExecutionRate(ExecutionRate.everyNthCycle(2));
+        scheduler.registerSubsystem(imu);
+        scheduler.registerSubsystem(colorSensor);
+
+        for (int cycle = 0; cycle < 6; cycle++) {
+            int before = imu.periodicCalls + colorSensor.periodicCalls;
+            scheduler.run();
+            assertEquals(before + 1, imu.periodicCalls + colorSensor.periodicCalls);
+        }
+
+        assertEquals(3, imu.periodicCalls);
+        assertEquals(3, colorSensor.periodicCalls);
+    }
+
+    @Test
+    void rateLimitedCommandSkipsCyclesThatAreNotDue() {
+        CommandScheduler scheduler = CommandScheduler.getInstance();
+        int[] executions = new int[1];
+
+        scheduler.schedule(Commands.run(() -> executions[0]++).withRate(ExecutionRate.everyNthCycle(3)));
+        for (int cycle = 0; cycle < 9; cycle++) {
+            scheduler.run();
+        }
+
+        assertEquals(3, executions[0]);
+    }
+
+    @Test
+    void parallelPeriodicMatchesSerialAndFinishesBeforeCommands() {
+        assertEquals(runFilterSubsystems(0), runFilterSubsystems(3));
+    }
+
+    private static List<Long> runFilterSubsystems(int threads) {
+        CommandScheduler scheduler = CommandScheduler.getInstance();
+        scheduler.reset();
+        scheduler.setParallelPeriodicThreads(threads);
+
+        List<FilterSubsystem> filters = new ArrayList<>();
+        for (int i = 1; i <= 6; i++) {
+            FilterSubsystem filter = new FilterSubsystem(i);
+            filter.setIndependent(true);
+            scheduler.registerSubsystem(filter);
+            filters.add(filter);
+        }
+        TestSubsystem serial = new TestSubsystem();
+        scheduler.registerSubsystem(serial);
+
+        int[] barrierViolations = new int[1];
+        scheduler.schedule(Commands.run(() -> {
+            for (FilterSubsystem filter : filters) {
+                if (filter.periodicCalls != serial.periodicCalls) {
+                    barrierViolations[0]++;
+                }
+            }
+        }));
+
+        for (int cycle = 0; cycle < 50; cycle++) {
+            scheduler.run();
+        }
+        assertEquals(0, barrierViolations[0]);
+
+        List<Long> results = new ArrayList<>();
+        for (FilterSubsystem filter : filters) {
+            results.add(filter.state);
+        }
+        scheduler.reset();
+        return results;
+    }
+
+    @Test
+    void steadyStateLoopDoesNotAllocate() {
+        assertSteadyStateDoesNotAllocate(false, false);
+    }
+
+    @Test
+    void profiledSteadyStateLoopDoesNotAllocate() {
+        assertSteadyStateDoesNotAllocate(true, false);
+    }
+
+    @Test
+    void journaledSteadyStateLoopDoesNotAllocate() {
+        assertSteadyStateDoesNotAllocate(false, true);
+    }
+
+    private static void assertSteadyStateDoesNotAllocate(boolean profiling, boolean journaled) {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof ThreadMXBean);
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+
+        CommandScheduler scheduler = CommandScheduler.getInstance();
+        scheduler.setProfilingEnabled(profiling);
+        if (journaled) {
+            scheduler.setJournal(new CommandJournal(64));
+        }
+        TestSubsystem subsystem = new TestSubsystem();
+        scheduler.registerSubsystem(subsystem);
+        subsystem.setDefaultCommand(new CountingCommand(Set.of(subsystem)));
+        CountingCommand active = new CountingCommand(Set.of(subsystem));
+
+        Runnable cycle = () -> {
+            scheduler.schedule(active);
+            scheduler.run();
+            scheduler.cancel(active);
+            scheduler.run();
+        };
+        for (int i = 0; i < 20_000; i++) {
+            cycle.run();
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long overhead = measureAllocation(threads, threadId, () -> {});
+        long allocated = measureAllocation(threads, threadId, () -> {
+            for (int i = 0; i < 1_000; i++) {
+                cycle.run();
+            }
+        });
+
+        assertEquals(overhead, allocated);
+    }
+
+    @Test
+    void submissionsFromOtherThreadsAreAppliedOnTheLoopThread() throws InterruptedException {
+        CommandScheduler scheduler = CommandScheduler.getInstance();
+        int producers = 4;
+        int perProducer = 250;
+        List<CountingCommand> commands = new ArrayList<>();
+        for (int i = 0; i < producers * perProducer; i++) {
+            commands.add(new CountingCommand(Set.of()));
+        }
+        Thread loopThread = Thread.currentThread();
+        boolean[] ranOnLoop = new boolean[1];
+
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int first = p * perProducer;
+            Thread thread = new Thread(() -> {
+                for (int i = first; i < first + perProducer; i++) {
+                    scheduler.submitSchedule(commands.get(i));
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        scheduler.runOnLoop(() -> ranOnLoop[0] = Thread.currentThread() == loopThread);
+
+        for (CountingCommand command : commands) {
+            assertFalse(scheduler.isScheduled(command));
+        }
+        scheduler.run();
+
+        assertTrue(ranOnLoop[0]);
+        for (CountingCommand command : commands) {
+            assertTrue(scheduler.isScheduled(command));
+            assertEquals(1, command.initializeCalls);
+        }
+
+        scheduler.submitCancel(commands.get(0));
+        assertTrue(scheduler.isScheduled(commands.get(0)));
+        scheduler.run();
+        assertFalse(scheduler.isScheduled(commands.get(0)));
+    }
+
+    @Test
+    void profilingRecordsEachLifecyclePhaseWorstFirst() {
+        CommandScheduler scheduler = new CommandScheduler();
+        scheduler.setProfilingEnabled(true);
+        TestSubsystem subsystem = new TestSubsystem();
+        scheduler.registerSubsystem(subsystem);
+        FinishesAfterOneExecuteCommand quick = new FinishesAfterOneExecuteCommand();
+        Command slow = Commands.run(() -> {
+            long until = System.nanoTime() + 2_000_000L;
+            while (System.nanoTime() < until) {
+                Thread.onSpinWait();
+            }
+        });
+
+        scheduler.schedule(quick);
+        scheduler.schedule(slow);
+        scheduler.run();
+        scheduler.run();
+        scheduler.cancel(slow);
+
+        List<ProfileEntry> snapshot = scheduler.getProfileSnapshot();
+        assertEquals(slow, snapshot.get(0).getSource());
+        assertEquals(ProfiledPhase.EXECUTE, snapshot.get(0).getPhase());
+        assertEquals(2, snapshot.get(0).getCount());
+        assertTrue(snapshot.get(0).getP50Nanos() >= 2_000_000L);
+
+        int quickPhases = 0;
+        for (ProfileEntry entry : snapshot) {
+            if (entry.getSource() == subsystem) {
+                assertEquals(ProfiledPhase.PERIODIC, entry.getPhase());
+                assertEquals(2, entry.getCount());
+            }
+            if (entry.getSource() == quick) {
+                assertEquals(1, entry.getCount());
+                quickPhases++;
+            }
+        }
+        assertEquals(3, quickPhases);
+
+        scheduler.clearProfiles();
+        assertTrue(scheduler.getProfileSnapshot().isEmpty());
+    }
+
+    @Test
+    void profilesOfFinishedCommandsAreRecycledPastTheLimit() {
+        CommandScheduler scheduler = new CommandScheduler();
+        scheduler.setProfilingEnabled(true);
+        Command longRunning = Commands.run(() -> {});
+        scheduler.schedule(longRunning);
+
+        Command last = null;
+        for (int i = 0; i < 1_000; i++) {
+            last = Commands.runOnce(() -> {});
+            scheduler.schedule(last);
+            scheduler.run();
+        }
+
+        Set<Object> sources = new HashSet<>();
+        for (ProfileEntry entry : scheduler.getProfileSnapshot()) {
+            sources.add(entry.getSource());
+        }
+        assertTrue(sources.size() <= 128);
+        assertTrue(sources.contains(last));
+        assertTrue(sources.contains(longRunning));
+    }
+
+    @Test
+    void watchdogCapturesTheBlockingCallDuringAnOverrun() {
+        CommandScheduler scheduler = new CommandScheduler();
+        CommandWatchdog watchdog = new CommandWatchdog(0.010);
+        watchdog.startSampler(0.001);
+        scheduler.setWatchdog(watchdog);
+        TestSubsystem subsystem = new TestSubsystem();
+        scheduler.registerSubsystem(subsystem);
+        Command blocking = Commands.run(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        try {
+            scheduler.schedule(blocking);
+            scheduler.run();
+        } finally {
+            watchdog.stopSampler();
+        }
+
+        assertEquals(1, watchdog.getOverrunCount());
+        WatchdogOverrun overrun = watchdog.pollOverrun();
+        assertEquals(blocking, overrun.getSource());
+        assertEquals(ProfiledPhase.EXECUTE, overrun.getPhase());
+        assertTrue(overrun.getDurationNanos() >= 50_000_000L);
+        assertNotNull(overrun.getStackTrace());
+        assertTrue(overrun.describe(5).contains("sleep"), overrun.describe(5));
+        assertNull(watchdog.pollOverrun());
+    }
+
+    @Test
+    void journalReplacesDirectListenerDispatch() {
+        CommandScheduler scheduler = new CommandScheduler();
+        CommandJournal journal = new CommandJournal(16);
+        scheduler.setJournal(journal);
+        List<String> events = new ArrayList<>();
+        CommandSchedulerListener listener = new CommandSchedulerListener() {
+            @Override
+            public void onCommandScheduled(Command command) {
+                events.add("scheduled");
+            }
+
+            @Override
+            public void onCommandFinished(Command command) {
+                events.add("finished");
+            }
+
+            @Override
+            public void onCommandCanceled(Command command) {
+                events.add("canceled");
+            }
+
+            @Override
+            public void onCommandInterrupted(Command command, Command interruptedBy) {
+                events.add("interrupted");
+            }
+        };
+        scheduler.addListener(listener);
+        TestSubsystem subsystem = new TestSubsystem();
+        CountingCommand first = new CountingCommand(Set.of(subsystem));
+        CountingCommand second = new CountingCommand(Set.of(subsystem));
+        FinishesAfterOneExecuteCommand quick = new FinishesAfterOneExecuteCommand();
+
+        scheduler.schedule(first);
+        scheduler.schedule(second);
+        scheduler.schedule(quick);
+        scheduler.run();
+        assertTrue(events.isEmpty());
+
+        CommandJournal.Cursor cursor = journal.newCursor();
+        JournalEvent event = cursor.next();
+        assertEquals(JournalEventType.SCHEDULED, event.getType());
+        assertEquals(first, event.getCommand());
+        event = cursor.next();
+        assertEquals(JournalEventType.INTERRUPTED, event.getType());
+        assertEquals(first, event.getCommand());
+        assertEquals(second, event.getCause());
+
+        assertEquals(3, cursor.dispatchTo(listener));
+        assertEquals(List.of("scheduled", "scheduled", "finished"), events);
+        assertEquals(0, cursor.getMissed());
+    }
+
+    @Test
+    void independentSchedulersRunInParallel() throws InterruptedException {
+        int count = 8;
+        int cycles = 500;
+        int[] periodicCalls = new int[count];
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int index = i;
+            Thread thread = new Thread(() -> {
+                CommandScheduler scheduler = new CommandScheduler();
+                TestSubsystem subsystem = new TestSubsystem();
+                scheduler.registerSubsystem(subsystem);
+                CountingCommand command = new CountingCommand(Set.of(subsystem));
+                scheduler.schedule(command);
+                for (int c = 0; c < cycles; c++) {
+                    scheduler.run();
+                }
+                periodicCalls[index] = subsystem.periodicCalls;
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        for (int calls : periodicCalls) {
+            assertEquals(cycles, calls);
+        }
+        assertEquals(0, CommandScheduler.getInstance().getCycleCount());
+    }
+
+    @Test
+    void waitingCommandsAreParkedUntilTheirWakeTime() {
+        CommandScheduler scheduler = new CommandScheduler();
+        VirtualTimeSource time = new VirtualTimeSource();
+        scheduler.getClock().setTimeSource(time);
+        int[] executeCalls = new int[1];
+        Command sleeper = new Command() {
+            private long startNanos;
+
+            @Override
+            public void initialize() {
+                startNanos = LoopClock.current().getNanos();
+            }
+
+            @Override
+            public void execute() {
+                executeCalls[0]++;
+            }
+
+            @Override
+            public boolean isFinished() {
+                return LoopClock.current().getNanos() - startNanos >= 1_000_000_000L;
+            }
+
+            @Override
+            public long getWakeTimeNanos() {
+                return startNanos + 1_000_000_000L;
+            }
+        };
+
+        scheduler.schedule(sleeper);
+        for (int i = 0; i < 49; i++) {
+            scheduler.run();
+            time.advance(0.02);
+        }
+        assertEquals(1, executeCalls[0]);
+        assertEquals(1, scheduler.getParkedCount());
+        assertTrue(scheduler.isScheduled(sleeper));
+        assertFalse(scheduler.isIdle());
+
+        time.advance(0.02);
+        scheduler.run();
+        assertEquals(2, executeCalls[0]);
+        assertFalse(scheduler.isScheduled(sleeper));
+        assertEquals(0, scheduler.getParkedCount());
+    }
+
+    @Test
+    void aThrowingCommandDoesNotLeaveTheSchedulerRunning() {
+        CommandScheduler scheduler = new CommandScheduler();
+        Command failing = Commands.run(() -> {
+            throw new IllegalStateException("boom");
+        });
+        scheduler.schedule(failing);
+        assertThrows(IllegalStateException.class, scheduler::run);
+
+        scheduler.cancel(failing);
+        int[] executes = new int[1];
+        scheduler.schedule(Commands.run(() -> executes[0]++));
+        scheduler.flush();
+        assertEquals(1, executes[0]);
+        scheduler.run();
+        assertEquals(2, executes[0]);
+    }
+
+    @Test
+    void wrappersWithTheirOwnConditionAreNotParked() {
+        CommandScheduler scheduler = new CommandScheduler();
+        VirtualTimeSource time = new VirtualTimeSource();
+        scheduler.getClock().setTimeSource(time);
+        boolean[] stop = new boolean[1];
+        Command stoppable = new CommandWrapper(Commands.waitSeconds(60)) {
+            @Override
+            protected boolean onIsFinished() {
+                return stop[0] || super.onIsFinished();
+            }
+        };
+        Command plain = new FinallyCommand(Commands.waitSeconds(60), () -> {});
+
+        scheduler.schedule(stoppable);
+        scheduler.schedule(plain);
+        scheduler.run();
+        assertEquals(1, scheduler.getParkedCount());
+
+        stop[0] = true;
+        time.advance(0.02);
+        scheduler.run();
+        assertFalse(scheduler.isScheduled(stoppable));
+        assertTrue(scheduler.isScheduled(plain));
+    }
+
+    @Test
+    void parkedCommandsCanBeCanceledAndPreempted() {
+        CommandScheduler scheduler = new CommandScheduler();
+        TestSubsystem subsystem = new TestSubsystem();
+        scheduler.registerSubsystem(subsystem);
+        Command parked = Commands.waitSeconds(60).withTimeout(120);
+        Command waiting = new Command() {
+            @Override
+            public void execute() {}
+
+            @Override
+            public Set<Subsystem> getRequirements() {
+                return Set.of(subsystem);
+            }
+
+            @Override
+            public long getWakeTimeNanos() {
+                return LoopClock.current().getNanos() + 60_000_000_000L;
+            }
+        };
+
+        scheduler.schedule(parked);
+        scheduler.schedule(waiting);
+        scheduler.run();
+        assertEquals(2, scheduler.getParkedCount());
+
+        scheduler.cancel(parked);
+        assertFalse(scheduler.isScheduled(parked));
+        CountingCommand preempting = new CountingCommand(Set.of(subsystem));
+        scheduler.schedule(preempting);
+        assertFalse(scheduler.isScheduled(waiting));
+        assertEquals(0, scheduler.getParkedCount());
+        assertTrue(scheduler.isScheduled(preempting));
+    }
+
+    @Test
+    void groupsParkOnlyWhileEveryRunningChildIsWaiting() {
+        CommandScheduler scheduler = new CommandScheduler();
+        VirtualTimeSource time = new VirtualTimeSource();
+        scheduler.getClock().setTimeSource(time);
+        boolean[] done = new boolean[1];
+        Command sequence = Commands.waitSeconds(0.5).andThen(Commands.waitSeconds(0.5)).withTimeout(3);
+        Command polled = Commands.waitSeconds(0.5).until(() -> done[0]);
+
+        scheduler.schedule(sequence);
+        scheduler.schedule(polled);
+        scheduler.run();
+        assertEquals(1, scheduler.getParkedCount());
+        assertTrue(scheduler.isScheduled(polled));
+
+        for (int i = 0; i < 55; i++) {
+            time.advance(0.02);
+            scheduler.run();
+        }
+        assertFalse(scheduler.isScheduled(sequence));
+        assertFalse(scheduler.isScheduled(polled));
+    }
+
+    @Test
+    void waitUntilWithPollIntervalChecksItsConditionLessOften() {
+        CommandScheduler scheduler = new CommandScheduler();
+        VirtualTimeSource time = new VirtualTimeSource();
+        scheduler.getClock().setTimeSource(time);
+        int[] checks = new int[1];
+        Command waitUntil = Commands.waitUntil(() -> ++checks[0] >= 5, 0.1);
+
+        scheduler.schedule(waitUntil);
+        int cycles = 0;
+        while (scheduler.isScheduled(waitUntil)) {
+            scheduler.run();
+            time.advance(0.02);
+            cycles++;
+        }
+
+        assertEquals(5, checks[0]);
+        assertEquals(21, cycles);
+    }
+
+    @Test
+    void commandsScheduledDuringTheCommandPassExecuteInTheSameCycle() {
+        CommandScheduler scheduler = new CommandScheduler();
+        int[] followUpExecutes = new int[1];
+        Command followUp = Commands.run(() -> followUpExecutes[0]++);
+        Command trigger = Commands.runOnce(() -> scheduler.schedule(followUp));
+
+        scheduler.schedule(trigger);
+        scheduler.run();
+
+        assertEquals(1, followUpExecutes[0]);
+        assertEquals(2, scheduler.getScheduleLatency().getCount());
+    }
+
+    @Test
+    void defaultCommandExecutesInTheCycleItsSubsystemIsFreed() {
+        CommandScheduler scheduler = new CommandScheduler();
+        TestSubsystem subsystem = new TestSubsystem();
+        scheduler.registerSubsystem(subsystem);
+        int[] defaultExecutes = new int[1];
+        Command defaultCommand = new Command() {
+            @Override
+            public void execute() {
+                defaultExecutes[0]++;
+            }
+
+            @Override
+            public Set<Subsystem> getRequirements() {
+                return Set.of(subsystem);
+            }
+        };
+        subsystem.setDefaultCommand(defaultCommand);
+        Command oneShot = new FinishesAfterOneExecuteCommand() {
+            @Override
+            public Set<Subsystem> getRequirements() {
+                return Set.of(subsystem);
+            }
+        };
+
+        scheduler.schedule(oneShot);
+        scheduler.run();
+
+        assertFalse(scheduler.isScheduled(oneShot));
+        assertTrue(scheduler.isScheduled(defaultCommand));
+        assertEquals(1, defaultExecutes[0]);
+    }
+
+    @Test
+    void flushExecutesOnlyCommandsThatHaveNotStarted() {
+        CommandScheduler scheduler = new CommandScheduler();
+        int[] executes = new int[2];
+        Command running = Commands.run(() -> executes[0]++);
+        Command late = Commands.run(() -> executes[1]++);
+
+        scheduler.schedule(running);
+        scheduler.run();
+        scheduler.schedule(late);
+        scheduler.flush();
+        scheduler.flush();
+
+        assertEquals(1, executes[0]);
+        assertEquals(1, executes[1]);
+        assertEquals(1, scheduler.getCycleCount());
+    }
+
+    @Test
+    void fineGrainedRequirementsFollowTheRunningChildren() {
+        CommandScheduler scheduler = new CommandScheduler();
+        scheduler.setFineGrainedRequirements(true);
+        TestSubsystem drive = new TestSubsystem();
+        TestSubsystem intake = new TestSubsystem();
+        scheduler.registerSubsystem(drive);
+        scheduler.registerSubsystem(intake);
+        CountingCommand intakeDefault = new CountingCommand(Set.of(intake));
+        intake.setDefaultCommand(intakeDefault);
+        int[] driveExecutes = new int[1];
+        Command driveStep = new Command() {
+            @Override
+            public void execute() {
+                driveExecutes[0]++;
+            }
+
+            @Override
+            public boolean isFinished() {
+                return driveExecutes[0] >= 2;
+            }
+
+            @Override
+            public Set<Subsystem> getRequirements() {
+                return Set.of(drive);
+            }
+        };
+        Command intakeStep = new CountingCommand(Set.of(intake));
+        Command auto = Commands.sequence(driveStep, intakeStep);
+
+        scheduler.schedule(auto);
+        assertFalse(scheduler.isScheduled(intakeDefault));
+
+        scheduler.run();
+        assertTrue(scheduler.isScheduled(auto));
+        assertTrue(scheduler.isScheduled(intakeDefault));
+
+        scheduler.run();
+        assertTrue(scheduler.isScheduled(auto));
+        assertFalse(scheduler.isScheduled(intakeDefault));
+        assertEquals(1, ((CountingCommand) intakeStep).initializeCalls);
+    }
+
+    @Test
+    void fineGrainedReclaimEndsTheOwnerBeforeTheChildStarts() {
+        CommandScheduler scheduler = new CommandScheduler();
+        scheduler.setFineGrainedRequirements(true);
+        TestSubsystem drive = new TestSubsystem();
+        TestSubsystem intake = new TestSubsystem();
+        scheduler.registerSubsystem(drive);
+        scheduler.registerSubsystem(intake);
+        List<String> events = new ArrayList<>();
+        intake.setDefaultCommand(new LoggingCommand("default", events, Integer.MAX_VALUE, intake));
+        Command auto = Commands.sequence(
+                new LoggingCommand("drive", events, 2, drive),
+                new LoggingCommand("intake", events, 1, intake));
+
+        scheduler.schedule(auto);
+        scheduler.run();
+        events.clear();
+        scheduler.run();
+
+        assertEquals(List.of("drive execute", "drive end", "default end", "intake initialize"),
+                events.subList(0, 4));
+        assertFalse(scheduler.isScheduled(intake.getDefaultCommand()));
+    }
+
+    @Test
+    void chainedChildrenOwnTheSubsystemsTheyRunOn() {
+        CommandScheduler scheduler = new CommandScheduler();
+        scheduler.setFineGrainedRequirements(true);
+        TestSubsystem drive = new TestSubsystem();
+        TestSubsystem intake = new TestSubsystem();
+        scheduler.registerSubsystem(drive);
+        scheduler.registerSubsystem(intake);
+        List<String> events = new ArrayList<>();
+        Command intakeDefault = new LoggingCommand("default", events, Integer.MAX_VALUE, intake);
+        intake.setDefaultCommand(intakeDefault);
+        Command auto = new SequentialCommandGroup(
+                new LoggingCommand("drive", events, 3, drive),
+                new LoggingCommand("intake", events, 1, intake),
+                new LoggingCommand("park", events, Integer.MAX_VALUE, drive))
+                .chainThrough(5, 0);
+
+        scheduler.schedule(auto);
+        scheduler.run();
+        assertTrue(scheduler.isScheduled(intakeDefault));
+        scheduler.run();
+        events.clear();
+        scheduler.run();
+
+        int defaultEnd = events.indexOf("default end");
+        assertTrue(defaultEnd >= 0);
+        assertTrue(defaultEnd < events.indexOf("intake initialize"));
+        assertEquals(events.indexOf("intake end") + 1, events.indexOf("park initialize"));
+        // The intake is free again once the instant step is done.
+        assertTrue(scheduler.isScheduled(intakeDefault));
+    }
+
+    @Test
+    void sharedRequirementsDoNotConflictWithExclusiveOnes() {
+        CommandScheduler scheduler = new CommandScheduler();
+        TestSubsystem drive = new TestSubsystem();
+        scheduler.registerSubsystem(drive);
+        CountingCommand driveDefault = new CountingCommand(Set.of(drive));
+        drive.setDefaultCommand(driveDefault);
+        int[] observations = new int[1];
+        Command observer = Commands.observe(() -> observations[0]++, drive);
+        Command otherObserver = Commands.observe(() -> {}, drive);
+
+        scheduler.schedule(observer);
+        scheduler.schedule(otherObserver);
+        scheduler.run();
+        assertTrue(scheduler.isScheduled(driveDefault));
+
+        CountingCommand driver = new CountingCommand(Set.of(drive));
+        scheduler.schedule(driver);
+        scheduler.run();
+
+        assertFalse(scheduler.isScheduled(driveDefault));
+        assertTrue(scheduler.isScheduled(driver));
+        assertTrue(scheduler.isScheduled(observer));
+        assertTrue(scheduler.isScheduled(otherObserver));
+        assertEquals(2, observations[0]);
+
+        Command lateObserver = Commands.observe(() -> {}, drive);
+        scheduler.schedule(lateObserver);
+        assertTrue(scheduler.isScheduled(lateObserver));
+        assertTrue(scheduler.isScheduled(driver));
+    }
+
+    private static long measureAllocation(ThreadMXBean threads, long threadId, Runnable body) {
+        long before = threads.getThreadAllocatedBytes(threadId);
+        body.run();
+        return threads.getThreadAllocatedBytes(threadId) - before;
+    }
+
     private static class TestSubsystem extends Subsystem {
 
         private int periodicCalls;
@@ -112,6 +940,25 @@ class CommandSchedulerTest {
         }
     }
 
+    private static class FilterSubsystem extends Subsystem {
+
+        private final long seed;
+        private long state;
+        private volatile int periodicCalls;
+
+        private FilterSubsystem(long seed) {
+            this.seed = seed;
+        }
+
+        @Override
+        public void periodic() {
+            for (int i = 0; i < 10_000; i++) {
+                state = state * 6364136223846793005L + seed;
+            }
+            periodicCalls++;
+        }
+    }
+
     private static class CountingCommand implements Command {
 
         private final Set<Subsystem> requirements;
@@ -135,6 +982,49 @@ class CommandSchedulerTest {
         }
     }
 
+    private static class LoggingCommand implements Command {
+
+        private final String name;
+        private final List<String> events;
+        private final int loopsToFinish;
+        private final Set<Subsystem> requirements;
+        private int executeLoops;
+
+        private LoggingCommand(String name, List<String> events, int loopsToFinish, Subsystem requirement) {
+            this.name = name;
+            this.events = events;
+            this.loopsToFinish = loopsToFinish;
+            this.requirements = Set.of(requirement);
+        }
+
+        @Override
+        public void initialize() {
+            executeLoops = 0;
+            events.add(name + " initialize");
+        }
+
+        @Override
+        public void execute() {
+            executeLoops++;
+            events.add(name + " execute");
+        }
+
+        @Override
+        public boolean isFinished() {
+            return executeLoops >= loopsToFinish;
+        }
+
+        @Override
+        public void end(boolean interrupted) {
+            events.add(name + " end");
+        }
+
+        @Override
+        public Set<Subsystem> getRequirements() {
+            return requirements;
+        }
+    }
+
     private static class FinishesAfterOneExecuteCommand implements Command {
 
         private boolean finished;
@@ -0,0 +1,60 @@
+package com.vcs.valleylib.core.scheduler;
+
+import com.vcs.valleylib.core.subsystem.Subsystem;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ParallelPeriodicExecutorTest {
+
+    @Test
+    void backToBackBatchesRunEachPeriodicExactlyOnce() {
+        ParallelPeriodicExecutor executor = new ParallelPeriodicExecutor(4);
+        CountingSubsystem[] subsystems = new CountingSubsystem[8];
+        for (int i = 0; i < subsystems.length; i++) {
+            subsystems[i] = new CountingSubsystem();
+        }
+        LatencyHistogram[] profiles = new LatencyHistogram[subsystems.length];
+
+        int wrongCounts = 0;
+        try {
+            for (int batch = 0; batch < 50_000; batch++) {
+                // Alternating sizes let a stale claim index fall inside the next batch.
+                int count = batch % 2 == 0 ? 1 : subsystems.length;
+                executor.fork(subsystems, profiles, null, count);
+                executor.join();
+                for (int i = 0; i < subsystems.length; i++) {
+                    int expected = i < count ? 1 : 0;
+                    if (subsystems[i].calls.getAndSet(0) != expected) {
+                        wrongCounts++;
+                    }
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(0, wrongCounts);
+        for (CountingSubsystem subsystem : subsystems) {
+            assertEquals(0, subsystem.overlaps.get());
+        }
+    }
+
+    private static class CountingSubsystem extends Subsystem {
+
+        private final AtomicInteger calls = new AtomicInteger();
+        private final AtomicInteger inside = new AtomicInteger();
+        private final AtomicInteger overlaps = new AtomicInteger();
+
+        @Override
+        public void periodic() {
+            if (inside.incrementAndGet() > 1) {
+                overlaps.incrementAndGet();
+            }
+            calls.incrementAndGet();
+            inside.decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.vcs.valleylib.core.scheduler;
+
+import com.vcs.valleylib.core.command.Command;
+import com.vcs.valleylib.core.command.Commands;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SampledSupplierTest {
+
+    @Test
+    void conditionsInOneCycleShareASingleRead() {
+        CommandScheduler scheduler = new CommandScheduler();
+        int[] reads = new int[1];
+        boolean[] busy = {true};
+        SampledBooleanSupplier followerBusy = new SampledBooleanSupplier(scheduler, () -> {
+            reads[0]++;
+            return busy[0];
+        });
+        Command first = Commands.waitUntil(() -> !followerBusy.getAsBoolean());
+        Command second = Commands.waitUntil(() -> !followerBusy.getAsBoolean());
+        Command third = Commands.run(() -> {}).until(() -> !followerBusy.getAsBoolean());
+
+        scheduler.schedule(first);
+        scheduler.schedule(second);
+        scheduler.schedule(third);
+        scheduler.run();
+        assertEquals(1, reads[0]);
+
+        busy[0] = false;
+        assertTrue(followerBusy.getAsBoolean());
+        scheduler.run();
+        assertEquals(2, reads[0]);
+        assertFalse(scheduler.isScheduled(first));
+        assertFalse(scheduler.isScheduled(second));
+        assertFalse(scheduler.isScheduled(third));
+    }
+
+    @Test
+    void doubleSampleIsRefreshedEachCycleAndOnReset() {
+        CommandScheduler scheduler = new CommandScheduler();
+        double[] distance = {12.5};
+        SampledDoubleSupplier sensor = new SampledDoubleSupplier(scheduler, () -> distance[0]);
+
+        assertEquals(12.5, sensor.getAsDouble());
+        distance[0] = 8.0;
+        assertEquals(12.5, sensor.getAsDouble());
+        scheduler.run();
+        assertEquals(8.0, sensor.getAsDouble());
+
+        distance[0] = 3.0;
+        scheduler.reset();
+        assertEquals(3.0, sensor.getAsDouble());
+    }
+}
@@ -0,0 +1,75 @@
+package com.vcs.valleylib.core.scheduler;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimerWheelTest {
+
+    private static final long TICK_NANOS = 1L << 20;
+    private static final long STEP_NANOS = 20_000_000L;
+
+    @Test
+    void slotsExpireWithinOneStepOfTheirWakeTimeOnEveryLevel() {
+        TimerWheel wheel = new TimerWheel();
+        long start = 5_000_000_000L;
+        long[] delays = {1_000_000L, 50_000_000L, 5_000_000_000L, 600_000_000_000L, 3L * 3_600_000_000_000L};
+        ScheduledCommand[] slots = new ScheduledCommand[delays.length];
+        long[] expiredAt = new long[delays.length];
+        for (int i = 0; i < delays.length; i++) {
+            slots[i] = new ScheduledCommand();
+            wheel.insert(slots[i], start + delays[i], start);
+        }
+
+        long now = start;
+        long end = start + delays[delays.length - 1] + STEP_NANOS;
+        while (now <= end) {
+            now += STEP_NANOS;
+            for (ScheduledCommand slot = wheel.advance(now); slot != null; slot = slot.wheelNext) {
+                for (int i = 0; i < slots.length; i++) {
+                    if (slots[i] == slot) {
+                        expiredAt[i] = now;
+                    }
+                }
+            }
+        }
+
+        assertEquals(0, wheel.size());
+        for (int i = 0; i < delays.length; i++) {
+            long wake = start + delays[i];
+            assertTrue(expiredAt[i] >= wake - TICK_NANOS, "slot " + i + " woke early");
+            assertTrue(expiredAt[i] < wake + STEP_NANOS, "slot " + i + " woke late");
+        }
+    }
+
+    @Test
+    void removedSlotsNeverExpire() {
+        TimerWheel wheel = new TimerWheel();
+        ScheduledCommand kept = new ScheduledCommand();
+        ScheduledCommand removed = new ScheduledCommand();
+        wheel.insert(kept, 100_000_000L, 0);
+        wheel.insert(removed, 100_000_000L, 0);
+
+        wheel.remove(removed);
+
+        assertNull(wheel.advance(50_000_000L));
+        ScheduledCommand expired = wheel.advance(200_000_000L);
+        assertSame(kept, expired);
+        assertNull(expired.wheelNext);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void clockGoingBackwardsWakesEverything() {
+        TimerWheel wheel = new TimerWheel();
+        ScheduledCommand slot = new ScheduledCommand();
+        wheel.insert(slot, 2_000_000_000L, 1_000_000_000L);
+        assertNull(wheel.advance(1_500_000_000L));
+
+        assertSame(slot, wheel.advance(0));
+        assertEquals(0, wheel.size());
+    }
+}
@@ -0,0 +1,77 @@
+package com.vcs.valleylib.core.simulation;
+
+import com.vcs.valleylib.core.command.Command;
+import com.vcs.valleylib.core.command.Commands;
+import com.vcs.valleylib.core.scheduler.CommandScheduler;
+import com.vcs.valleylib.core.subsystem.Subsystem;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SimulationDriverTest {
+
+    @Test
+    void thirtySecondAutoFinishesOnVirtualTime() {
+        CommandScheduler scheduler = new CommandScheduler();
+        SimulationDriver sim = new SimulationDriver(scheduler, 0.020);
+        SimArm arm = new SimArm();
+        scheduler.registerSubsystem(arm);
+        arm.setDefaultCommand(new Command() {
+            @Override
+            public void execute() {}
+
+            @Override
+            public Set<Subsystem> getRequirements() {
+                return Set.of(arm);
+            }
+        });
+        List<String> log = new ArrayList<>();
+
+        Command auto = Commands.sequence(
+                Commands.runOnce(() -> log.add("drive")),
+                Commands.waitSeconds(12.0),
+                Commands.runOnce(() -> log.add("score")),
+                Commands.waitSeconds(15.0),
+                Commands.runOnce(() -> log.add("park"))
+        );
+        scheduler.schedule(auto);
+
+        long startedAt = System.nanoTime();
+        assertTrue(sim.runUntilIdle(30.0));
+        long realNanos = System.nanoTime() - startedAt;
+
+        assertEquals(List.of("drive", "score", "park"), log);
+        assertEquals(27.0, sim.getElapsedSeconds(), 0.1);
+        assertEquals(sim.getSteps(), arm.simulationCalls);
+        assertTrue(realNanos < 5_000_000_000L);
+    }
+
+    @Test
+    void runUntilGivesUpAtTheTimeout() {
+        CommandScheduler scheduler = new CommandScheduler();
+        SimulationDriver sim = new SimulationDriver(scheduler, 0.010);
+
+        assertFalse(sim.runUntil(() -> false, 1.0));
+        assertEquals(1.0, sim.getElapsedSeconds(), 1e-9);
+        assertEquals(100, sim.getSteps());
+
+        sim.runFor(0.5);
+        assertEquals(150, sim.getSteps());
+    }
+
+    private static class SimArm extends Subsystem {
+
+        private long simulationCalls;
+
+        @Override
+        public void simulationPeriodic() {
+            simulationCalls++;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.vcs.valleylib.core.time;
+
+import com.vcs.valleylib.core.command.Command;
+import com.vcs.valleylib.core.command.Commands;
+import com.vcs.valleylib.core.scheduler.CommandScheduler;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LoopClockTest {
+
+    @Test
+    void clockIsSampledOncePerCycleAndMeasuresDt() {
+        VirtualTimeSource time = new VirtualTimeSource(1_000);
+        LoopClock clock = new LoopClock(time);
+
+        clock.update();
+        assertEquals(0, clock.getDtNanos());
+        time.advanceNanos(20_000_000L);
+        assertEquals(1_000, clock.getNanos());
+
+        clock.update();
+        assertEquals(20_001_000L, clock.getNanos());
+        assertEquals(0.020, clock.getDtSeconds(), 1e-12);
+
+        time.advanceNanos(5);
+        clock.resync();
+        assertEquals(20_001_005L, clock.getNanos());
+        assertEquals(20_000_000L, clock.getDtNanos());
+    }
+
+    @Test
+    void timeBasedCommandsFollowTheSchedulersClock() {
+        CommandScheduler scheduler = new CommandScheduler();
+        VirtualTimeSource time = new VirtualTimeSource();
+        scheduler.getClock().setTimeSource(time);
+        Command wait = Commands.waitSeconds(1.0);
+        Command timedOut = Commands.run(() -> {}).withTimeout(0.5);
+
+        scheduler.schedule(wait);
+        scheduler.schedule(timedOut);
+        assertSame(scheduler.getClock(), LoopClock.current());
+        for (int i = 0; i < 1_000; i++) {
+            scheduler.run();
+        }
+        assertTrue(scheduler.isScheduled(wait));
+        assertTrue(scheduler.isScheduled(timedOut));
+
+        time.advance(0.5);
+        scheduler.run();
+        assertTrue(scheduler.isScheduled(wait));
+        assertFalse(scheduler.isScheduled(timedOut));
+
+        time.advance(0.5);
+        scheduler.run();
+        assertFalse(scheduler.isScheduled(wait));
+    }
+}
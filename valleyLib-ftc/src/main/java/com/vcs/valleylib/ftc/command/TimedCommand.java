@@ -1,16 +1,17 @@
 package com.vcs.valleylib.ftc.command;
 
-import com.pedropathing.util.Timer;
 import com.vcs.valleylib.core.command.Command;
+import com.vcs.valleylib.core.time.LoopClock;
 
 /**
  * Command that runs for a fixed duration.
- * Preferred over raw Timer usage in autos.
+ * Preferred over raw Timer usage in autos. Elapsed time comes from the
+ * scheduler's {@link LoopClock}.
  */
 public abstract class TimedCommand implements Command {
 
     private final double durationSeconds;
-    private final Timer timer = new Timer();
+    private long startNanos;
 
     protected TimedCommand(double durationSeconds) {
         this.durationSeconds = durationSeconds;
@@ -18,18 +19,22 @@ public abstract class TimedCommand implements Command {
 
     @Override
     public void initialize() {
-        timer.resetTimer();
+        startNanos = LoopClock.current().getNanos();
         onStart();
     }
 
     @Override
     public void execute() {
-        onLoop(timer.getElapsedTimeSeconds());
+        onLoop(elapsedSeconds());
     }
 
     @Override
     public boolean isFinished() {
-        return timer.getElapsedTimeSeconds() >= durationSeconds;
+        return elapsedSeconds() >= durationSeconds;
+    }
+
+    private double elapsedSeconds() {
+        return (LoopClock.current().getNanos() - startNanos) / 1e9;
     }
 
     @Override
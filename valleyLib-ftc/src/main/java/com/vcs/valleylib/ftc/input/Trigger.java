@@ -11,34 +11,61 @@ import java.util.function.BooleanSupplier;
  * FTC-friendly trigger primitive inspired by WPILib/NextFTC trigger pipelines.
  *
  * Evaluate triggers once per loop by calling {@link TriggerManager#poll()}.
+ * Bindings act on the scheduler of the {@link TriggerManager} they are bound to.
+ *
+ * {@link #and}, {@link #or}, {@link #negate()} and {@link #debounce(double)}
+ * only describe an expression; {@link TriggerManager} compiles the expressions
+ * of all bound triggers into one shared {@link TriggerGraph}. The result for
+ * each trigger, together with the previous-state bit the polling manager keeps
+ * for it, is fanned out to every binding. A trigger bound to several managers
+ * therefore sees its own edges in each of them.
  */
 public class Trigger {
 
-    private final BooleanSupplier condition;
-    private final List<Runnable> bindings = new ArrayList<>();
+    static final int LEAF = 0;
+    static final int AND = 1;
+    static final int OR = 2;
+    static final int NOT = 3;
+    static final int DEBOUNCE = 4;
+
+    final int operator;
+    final BooleanSupplier leaf;
+    final Trigger left;
+    final Trigger right;
+    final long debounceNanos;
+
+    private final List<Binding> bindings = new ArrayList<>();
 
     public Trigger(BooleanSupplier condition) {
-        this.condition = condition;
+        this(LEAF, condition, null, null, 0);
+    }
+
+    private Trigger(int operator, BooleanSupplier leaf, Trigger left, Trigger right, long debounceNanos) {
+        this.operator = operator;
+        this.leaf = leaf;
+        this.left = left;
+        this.right = right;
+        this.debounceNanos = debounceNanos;
     }
 
     public Trigger and(BooleanSupplier other) {
-        return new Trigger(() -> condition.getAsBoolean() && other.getAsBoolean());
+        return and(new Trigger(other));
     }
 
     public Trigger and(Trigger other) {
-        return and(other.condition);
+        return new Trigger(AND, null, this, other, 0);
     }
 
     public Trigger or(BooleanSupplier other) {
-        return new Trigger(() -> condition.getAsBoolean() || other.getAsBoolean());
+        return or(new Trigger(other));
     }
 
     public Trigger or(Trigger other) {
-        return or(other.condition);
+        return new Trigger(OR, null, this, other, 0);
     }
 
     public Trigger negate() {
-        return new Trigger(() -> !condition.getAsBoolean());
+        return new Trigger(NOT, null, this, null, 0);
     }
 
     /**
@@ -46,41 +73,53 @@ public class Trigger {
      * true continuously for the provided duration.
      */
     public Trigger debounce(double seconds) {
-        return new Trigger(new DebouncedBooleanSupplier(condition, seconds));
+        return new Trigger(DEBOUNCE, null, this, null, (long) (seconds * 1_000_000_000L));
     }
 
     public Trigger onTrue(Command command) {
-        bindings.add(new TriggerBinding(condition, command, TriggerEvent.ON_TRUE));
+        bindings.add(new TriggerBinding(command, TriggerEvent.ON_TRUE));
         return this;
     }
 
     public Trigger onFalse(Command command) {
-        bindings.add(new TriggerBinding(condition, command, TriggerEvent.ON_FALSE));
+        bindings.add(new TriggerBinding(command, TriggerEvent.ON_FALSE));
         return this;
     }
 
     public Trigger onChange(Command command) {
-        bindings.add(new TriggerBinding(condition, command, TriggerEvent.ON_CHANGE));
+        bindings.add(new TriggerBinding(command, TriggerEvent.ON_CHANGE));
         return this;
     }
 
     public Trigger whileTrue(Command command) {
-        bindings.add(new TriggerBinding(condition, command, TriggerEvent.WHILE_TRUE));
+        bindings.add(new TriggerBinding(command, TriggerEvent.WHILE_TRUE));
         return this;
     }
 
     public Trigger whileFalse(Command command) {
-        bindings.add(new TriggerBinding(condition, command, TriggerEvent.WHILE_FALSE));
+        bindings.add(new TriggerBinding(command, TriggerEvent.WHILE_FALSE));
         return this;
     }
 
     public Trigger toggleOnTrue(Command command) {
-        bindings.add(new TriggerBinding(condition, command, TriggerEvent.TOGGLE_ON_TRUE));
+        bindings.add(new TriggerBinding(command, TriggerEvent.TOGGLE_ON_TRUE));
         return this;
     }
 
-    List<Runnable> getBindings() {
-        return bindings;
+    /**
+     * Updates every binding with this poll's value and the previous one.
+     */
+    void update(boolean current, boolean previous, CommandScheduler scheduler) {
+        for (int i = 0; i < bindings.size(); i++) {
+            bindings.get(i).update(current, previous, scheduler);
+        }
+    }
+
+    /**
+     * A trigger binding, updated with its trigger's current and previous state.
+     */
+    interface Binding {
+        void update(boolean current, boolean previous, CommandScheduler scheduler);
     }
 
     private enum TriggerEvent {
@@ -92,23 +131,18 @@ public class Trigger {
         TOGGLE_ON_TRUE
     }
 
-    private static class TriggerBinding implements Runnable {
+    private static class TriggerBinding implements Binding {
 
-        private final BooleanSupplier condition;
         private final Command command;
         private final TriggerEvent event;
-        private boolean previous;
 
-        private TriggerBinding(BooleanSupplier condition, Command command, TriggerEvent event) {
-            this.condition = condition;
+        private TriggerBinding(Command command, TriggerEvent event) {
             this.command = command;
             this.event = event;
         }
 
         @Override
-        public void run() {
-            boolean current = condition.getAsBoolean();
-            CommandScheduler scheduler = CommandScheduler.getInstance();
+        public void update(boolean current, boolean previous, CommandScheduler scheduler) {
             switch (event) {
                 case ON_TRUE:
                     if (current && !previous) {
@@ -153,36 +187,6 @@ public class Trigger {
                     }
                     break;
             }
-            previous = current;
-        }
-    }
-
-    private static class DebouncedBooleanSupplier implements BooleanSupplier {
-
-        private final BooleanSupplier source;
-        private final long debounceNanos;
-
-        private boolean lastSample;
-        private long changeTimestampNanos;
-
-        private DebouncedBooleanSupplier(BooleanSupplier source, double seconds) {
-            this.source = source;
-            this.debounceNanos = (long) (seconds * 1_000_000_000L);
-            this.lastSample = source.getAsBoolean();
-            this.changeTimestampNanos = System.nanoTime();
-        }
-
-        @Override
-        public boolean getAsBoolean() {
-            boolean sample = source.getAsBoolean();
-            long now = System.nanoTime();
-
-            if (sample != lastSample) {
-                lastSample = sample;
-                changeTimestampNanos = now;
-            }
-
-            return sample && (now - changeTimestampNanos) >= debounceNanos;
         }
     }
 }
@@ -0,0 +1,190 @@
+package com.vcs.valleylib.ftc.input;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Flat evaluation graph for a set of {@link Trigger} expressions.
+ *
+ * Every distinct sub-expression becomes one node in parallel primitive arrays:
+ *  - leaves are shared by supplier identity, so a gamepad field read by many
+ *    triggers is sampled at most once per poll
+ *  - operator nodes are hash-consed on (operator, operands), so common
+ *    sub-expressions are evaluated once
+ *  - nodes are appended after their operands, so array order is a
+ *    topological order
+ *
+ * Nodes are evaluated on demand and cached for the rest of the poll. Like the
+ * lambdas this replaces, {@code and} and {@code or} evaluate their left operand
+ * first and skip the right one when the left decides the result, so
+ * {@code present.and(reading)} never samples {@code reading} while
+ * {@code present} is false, and a skipped leaf costs no sensor read. Operand
+ * order is therefore kept when hash-consing.
+ */
+final class TriggerGraph {
+
+    private int size;
+    private int[] operators = new int[16];
+    private int[] lefts = new int[16];
+    private int[] rights = new int[16];
+    private long[] debounceNanos = new long[16];
+    private long[] inputChangedNanos = new long[16];
+    private BooleanSupplier[] leaves = new BooleanSupplier[16];
+    private boolean[] values = new boolean[16];
+    private boolean[] inputs = new boolean[16];
+    private boolean[] fresh = new boolean[16];
+    private long[] evaluatedPoll = new long[16];
+
+    private long poll;
+    private long nowNanos;
+
+    private final Map<Trigger, Integer> compiled = new IdentityHashMap<>();
+    private final Map<BooleanSupplier, Integer> leafNodes = new IdentityHashMap<>();
+    private final Map<NodeKey, Integer> operatorNodes = new HashMap<>();
+
+    /**
+     * Returns the node that computes a trigger's expression, adding nodes as needed.
+     */
+    int compile(Trigger trigger) {
+        Integer existing = compiled.get(trigger);
+        if (existing != null) {
+            return existing;
+        }
+        int node;
+        if (trigger.operator == Trigger.LEAF) {
+            Integer leafNode = leafNodes.get(trigger.leaf);
+            if (leafNode == null) {
+                leafNode = add(Trigger.LEAF, -1, -1, 0, trigger.leaf);
+                leafNodes.put(trigger.leaf, leafNode);
+            }
+            node = leafNode;
+        } else {
+            int left = compile(trigger.left);
+            int right = trigger.right != null ? compile(trigger.right) : -1;
+            NodeKey key = new NodeKey(trigger.operator, left, right, trigger.debounceNanos);
+            Integer operatorNode = operatorNodes.get(key);
+            if (operatorNode == null) {
+                operatorNode = add(trigger.operator, left, right, trigger.debounceNanos, null);
+                operatorNodes.put(key, operatorNode);
+            }
+            node = operatorNode;
+        }
+        compiled.put(trigger, node);
+        return node;
+    }
+
+    /**
+     * @return number of distinct nodes in the graph
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Starts a new poll. Nodes are re-evaluated the first time they are read after this.
+     *
+     * @param nowNanos loop clock timestamp used by debounce nodes
+     */
+    void beginPoll(long nowNanos) {
+        this.nowNanos = nowNanos;
+        poll++;
+    }
+
+    /**
+     * Returns the value of a node in the current poll, evaluating it and the
+     * operands it needs if it has not been read yet.
+     */
+    boolean value(int node) {
+        if (evaluatedPoll[node] == poll && !fresh[node]) {
+            return values[node];
+        }
+        boolean value;
+        switch (operators[node]) {
+            case Trigger.LEAF:
+                value = leaves[node].getAsBoolean();
+                break;
+            case Trigger.AND:
+                value = value(lefts[node]) && value(rights[node]);
+                break;
+            case Trigger.OR:
+                value = value(lefts[node]) || value(rights[node]);
+                break;
+            case Trigger.NOT:
+                value = !value(lefts[node]);
+                break;
+            default:
+                boolean input = value(lefts[node]);
+                if (fresh[node] || input != inputs[node]) {
+                    inputs[node] = input;
+                    inputChangedNanos[node] = nowNanos;
+                }
+                value = input && nowNanos - inputChangedNanos[node] >= debounceNanos[node];
+                break;
+        }
+        values[node] = value;
+        evaluatedPoll[node] = poll;
+        fresh[node] = false;
+        return value;
+    }
+
+    private int add(int operator, int left, int right, long debounce, BooleanSupplier leaf) {
+        if (size == operators.length) {
+            int capacity = size * 2;
+            operators = Arrays.copyOf(operators, capacity);
+            lefts = Arrays.copyOf(lefts, capacity);
+            rights = Arrays.copyOf(rights, capacity);
+            debounceNanos = Arrays.copyOf(debounceNanos, capacity);
+            inputChangedNanos = Arrays.copyOf(inputChangedNanos, capacity);
+            leaves = Arrays.copyOf(leaves, capacity);
+            values = Arrays.copyOf(values, capacity);
+            inputs = Arrays.copyOf(inputs, capacity);
+            fresh = Arrays.copyOf(fresh, capacity);
+            evaluatedPoll = Arrays.copyOf(evaluatedPoll, capacity);
+        }
+        operators[size] = operator;
+        lefts[size] = left;
+        rights[size] = right;
+        debounceNanos[size] = debounce;
+        leaves[size] = leaf;
+        fresh[size] = true;
+        return size++;
+    }
+
+    private static final class NodeKey {
+
+        private final int operator;
+        private final int left;
+        private final int right;
+        private final long debounceNanos;
+
+        private NodeKey(int operator, int left, int right, long debounceNanos) {
+            this.operator = operator;
+            this.left = left;
+            this.right = right;
+            this.debounceNanos = debounceNanos;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof NodeKey)) {
+                return false;
+            }
+            NodeKey other = (NodeKey) o;
+            return operator == other.operator
+                    && left == other.left
+                    && right == other.right
+                    && debounceNanos == other.debounceNanos;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = operator;
+            hash = 31 * hash + left;
+            hash = 31 * hash + right;
+            return 31 * hash + Long.hashCode(debounceNanos);
+        }
+    }
+}
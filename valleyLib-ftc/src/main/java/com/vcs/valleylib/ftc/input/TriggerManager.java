@@ -1,17 +1,51 @@
 package com.vcs.valleylib.ftc.input;
 
+import com.vcs.valleylib.core.scheduler.CommandScheduler;
+
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
  * Registry for command trigger bindings.
+ *
+ * Bindings schedule and cancel commands on the manager's scheduler, which is
+ * the shared {@link CommandScheduler#getInstance()} unless one is injected.
+ *
+ * Each bound trigger is evaluated exactly once per {@link #poll()}, however
+ * many bindings it has. Bindings added to a trigger after it was bound are
+ * picked up on the next poll. Trigger expressions are compiled into a shared
+ * {@link TriggerGraph} the first time they are polled. The previous value of
+ * each trigger, used for edge detection, is kept per manager.
  */
 public class TriggerManager {
 
-    private final List<Runnable> bindings = new ArrayList<>();
+    private final CommandScheduler scheduler;
+    private final List<Trigger> triggers = new ArrayList<>();
+    private TriggerGraph graph = new TriggerGraph();
+    private int[] roots = new int[16];
+    private boolean[] previous = new boolean[16];
+    private int compiledCount;
+
+    public TriggerManager() {
+        this(CommandScheduler.getInstance());
+    }
+
+    public TriggerManager(CommandScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    public CommandScheduler getScheduler() {
+        return scheduler;
+    }
 
     public Trigger bind(Trigger trigger) {
-        bindings.addAll(trigger.getBindings());
+        for (int i = 0; i < triggers.size(); i++) {
+            if (triggers.get(i) == trigger) {
+                return trigger;
+            }
+        }
+        triggers.add(trigger);
         return trigger;
     }
 
@@ -21,13 +55,48 @@ public class TriggerManager {
         }
     }
 
+    /**
+     * Polls every bound trigger at the current time of the scheduler's clock.
+     */
     public void poll() {
-        for (Runnable binding : bindings) {
-            binding.run();
+        poll(scheduler.getClock().sampleNanos());
+    }
+
+    /**
+     * Polls every bound trigger at a loop timestamp read with
+     * {@link com.vcs.valleylib.core.time.LoopClock#sampleNanos()}. Pass the same
+     * timestamp to {@link CommandScheduler#run(long)} afterwards: the clock is
+     * held at it, so debounce windows and commands scheduled by bindings use the
+     * time of the cycle they belong to.
+     *
+     * @param nowNanos timestamp of the upcoming cycle
+     */
+    public void poll(long nowNanos) {
+        scheduler.getClock().hold(nowNanos);
+        int count = triggers.size();
+        if (compiledCount < count) {
+            if (roots.length < count) {
+                int capacity = Math.max(count, roots.length * 2);
+                roots = Arrays.copyOf(roots, capacity);
+                previous = Arrays.copyOf(previous, capacity);
+            }
+            for (int i = compiledCount; i < count; i++) {
+                roots[i] = graph.compile(triggers.get(i));
+            }
+            compiledCount = count;
+        }
+        graph.beginPoll(nowNanos);
+        for (int i = 0; i < count; i++) {
+            boolean current = graph.value(roots[i]);
+            triggers.get(i).update(current, previous[i], scheduler);
+            previous[i] = current;
         }
     }
 
     public void clear() {
-        bindings.clear();
+        triggers.clear();
+        graph = new TriggerGraph();
+        Arrays.fill(previous, false);
+        compiledCount = 0;
     }
 }
@@ -1,20 +1,67 @@
 package com.vcs.valleylib.ftc.logging;
 
 import com.vcs.valleylib.core.command.Command;
+import com.vcs.valleylib.core.scheduler.CommandScheduler;
 import com.vcs.valleylib.core.scheduler.CommandSchedulerListener;
+import com.vcs.valleylib.core.scheduler.ProfileEntry;
 import com.vcs.valleylib.ftc.telemetry.FtcTelemetryBus;
 
+import java.util.Arrays;
+import java.util.List;
+
 /**
  * Command scheduler listener that writes lifecycle events to telemetry.
  */
 public class FtcCommandLogger implements CommandSchedulerListener {
 
+    private static final long REPORT_PERIOD_NANOS = 1_000_000_000L;
+
     private final FtcTelemetryBus telemetryBus;
+    private String[] reportKeys = new String[0];
+    private String[] reportLines = new String[0];
+    private int reportCount;
+    private long lastReportNanos;
+    private boolean reported;
 
     public FtcCommandLogger(FtcTelemetryBus telemetryBus) {
         this.telemetryBus = telemetryBus;
     }
 
+    /**
+     * Writes the scheduler's slowest profiled commands and subsystems to telemetry,
+     * under "prof/1", "prof/2", and so on. Requires profiling to be enabled on the scheduler.
+     *
+     * A snapshot copies and sorts every histogram, so a new one is taken at most
+     * once per second of loop time. Calls in between show the lines formatted
+     * from the last snapshot again, so this can be called every loop.
+     *
+     * @param scheduler profiled scheduler
+     * @param limit maximum number of entries to show
+     */
+    public void reportWorstOffenders(CommandScheduler scheduler, int limit) {
+        long now = scheduler.getClock().getNanos();
+        if (!reported || now - lastReportNanos >= REPORT_PERIOD_NANOS) {
+            reported = true;
+            lastReportNanos = now;
+            List<ProfileEntry> snapshot = scheduler.getProfileSnapshot();
+            reportCount = Math.min(limit, snapshot.size());
+            if (reportKeys.length < reportCount) {
+                int previous = reportKeys.length;
+                reportKeys = Arrays.copyOf(reportKeys, reportCount);
+                reportLines = Arrays.copyOf(reportLines, reportCount);
+                for (int i = previous; i < reportCount; i++) {
+                    reportKeys[i] = "prof/" + (i + 1);
+                }
+            }
+            for (int i = 0; i < reportCount; i++) {
+                reportLines[i] = snapshot.get(i).toString();
+            }
+        }
+        for (int i = 0; i < reportCount; i++) {
+            telemetryBus.put(reportKeys[i], reportLines[i]);
+        }
+    }
+
     @Override
     public void onCommandScheduled(Command command) {
         telemetryBus.put("cmd/scheduled", command.getClass().getSimpleName());
@@ -29,4 +76,10 @@ public class FtcCommandLogger implements CommandSchedulerListener {
     public void onCommandCanceled(Command command) {
         telemetryBus.put("cmd/canceled", command.getClass().getSimpleName());
     }
+
+    @Override
+    public void onCommandInterrupted(Command command, Command interruptedBy) {
+        telemetryBus.put("cmd/interrupted",
+                command.getClass().getSimpleName() + " by " + interruptedBy.getClass().getSimpleName());
+    }
 }
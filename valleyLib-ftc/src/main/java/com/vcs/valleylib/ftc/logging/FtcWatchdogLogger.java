@@ -0,0 +1,41 @@
+package com.vcs.valleylib.ftc.logging;
+
+import com.qualcomm.robotcore.util.RobotLog;
+import com.vcs.valleylib.core.scheduler.CommandWatchdog;
+import com.vcs.valleylib.core.scheduler.WatchdogOverrun;
+import com.vcs.valleylib.ftc.telemetry.FtcTelemetryBus;
+
+/**
+ * Reports scheduler watchdog overruns to telemetry and the robot log.
+ *
+ * Call {@link #report(CommandWatchdog)} once per loop from the loop thread.
+ */
+public class FtcWatchdogLogger {
+
+    private static final String TAG = "ValleyLib";
+    private static final int LOGGED_FRAMES = 12;
+
+    private final FtcTelemetryBus telemetryBus;
+
+    public FtcWatchdogLogger(FtcTelemetryBus telemetryBus) {
+        this.telemetryBus = telemetryBus;
+    }
+
+    /**
+     * Logs every overrun since the previous call, with its captured stack,
+     * and shows the overrun count and most recent overrun in telemetry.
+     *
+     * @param watchdog watchdog installed on the scheduler
+     */
+    public void report(CommandWatchdog watchdog) {
+        WatchdogOverrun overrun;
+        while ((overrun = watchdog.pollOverrun()) != null) {
+            RobotLog.ww(TAG, "Loop overrun: %s", overrun.describe(LOGGED_FRAMES));
+        }
+        WatchdogOverrun last = watchdog.getLastOverrun();
+        if (last != null) {
+            telemetryBus.put("watchdog/overruns", watchdog.getOverrunCount());
+            telemetryBus.put("watchdog/last", last);
+        }
+    }
+}
@@ -2,8 +2,10 @@ package com.vcs.valleylib.ftc.opmode;
 
 import com.bylazar.telemetry.PanelsTelemetry;
 import com.vcs.valleylib.core.scheduler.CommandScheduler;
+import com.vcs.valleylib.core.scheduler.CommandWatchdog;
 import com.vcs.valleylib.ftc.input.TriggerManager;
 import com.vcs.valleylib.ftc.logging.FtcCommandLogger;
+import com.vcs.valleylib.ftc.logging.FtcWatchdogLogger;
 import com.vcs.valleylib.ftc.telemetry.FtcTelemetryBus;
 import com.qualcomm.robotcore.eventloop.opmode.OpMode;
 
@@ -21,17 +23,32 @@ public abstract class CommandOpMode extends OpMode {
     protected CommandScheduler scheduler;
     protected FtcTelemetryBus telemetryBus;
     protected TriggerManager triggers;
+    private FtcCommandLogger commandLogger;
+    private CommandWatchdog watchdog;
+    private FtcWatchdogLogger watchdogLogger;
 
     @Override
     public final void init() {
-        scheduler = CommandScheduler.getInstance();
+        scheduler = createScheduler();
         telemetryBus = new FtcTelemetryBus(
                 telemetry,
                 PanelsTelemetry.get()
         );
-        triggers = new TriggerManager();
+        triggers = new TriggerManager(scheduler);
+        if (enableCommandLogging() || profileReportLimit() > 0) {
+            commandLogger = new FtcCommandLogger(telemetryBus);
+        }
         if (enableCommandLogging()) {
-            scheduler.addListener(new FtcCommandLogger(telemetryBus));
+            scheduler.addListener(commandLogger);
+        }
+        if (profileReportLimit() > 0) {
+            scheduler.setProfilingEnabled(true);
+        }
+        if (watchdogThreshold() > 0) {
+            watchdog = new CommandWatchdog(watchdogThreshold());
+            watchdog.startSampler(watchdogThreshold() / 4);
+            scheduler.setWatchdog(watchdog);
+            watchdogLogger = new FtcWatchdogLogger(telemetryBus);
         }
         initialize();
         configureBindings();
@@ -39,9 +56,19 @@ public abstract class CommandOpMode extends OpMode {
 
     @Override
     public final void loop() {
-        triggers.poll();
-        scheduler.run();
+        // One timestamp for the whole loop: triggers and commands see the same time.
+        long now = scheduler.getClock().sampleNanos();
+        triggers.poll(now);
+        scheduler.run(now);
         run();
+        // Commands scheduled by run() actuate this loop rather than the next.
+        scheduler.flush();
+        if (profileReportLimit() > 0) {
+            commandLogger.reportWorstOffenders(scheduler, profileReportLimit());
+        }
+        if (watchdogLogger != null) {
+            watchdogLogger.report(watchdog);
+        }
         telemetryBus.update();
     }
 
@@ -49,6 +76,13 @@ public abstract class CommandOpMode extends OpMode {
     public void stop() {
         scheduler.cancelAll();
         triggers.clear();
+        if (profileReportLimit() > 0) {
+            scheduler.setProfilingEnabled(false);
+        }
+        if (watchdog != null) {
+            watchdog.stopSampler();
+            scheduler.setWatchdog(null);
+        }
     }
 
     /**
@@ -65,10 +99,37 @@ public abstract class CommandOpMode extends OpMode {
 
     /**
      * Called every loop after scheduler execution.
-     * Use for OpMode-specific logic and telemetry values.
+     * Use for OpMode-specific logic and telemetry values. Commands scheduled
+     * here get their first execute before the loop ends.
      */
     protected abstract void run();
 
+    /**
+     * Override to profile the scheduler and show this many of the slowest
+     * commands and subsystems in telemetry, refreshed once per second.
+     * 0 (the default) disables profiling.
+     */
+    protected int profileReportLimit() {
+        return 0;
+    }
+
+    /**
+     * Override to report any command or subsystem callback that runs at least
+     * this many seconds, with the blocking stack, to telemetry and the robot log.
+     * 0 (the default) disables the watchdog.
+     */
+    protected double watchdogThreshold() {
+        return 0;
+    }
+
+    /**
+     * Called once at the start of init() to obtain the scheduler for this OpMode.
+     * Defaults to the shared instance; override to run on a dedicated scheduler.
+     */
+    protected CommandScheduler createScheduler() {
+        return CommandScheduler.getInstance();
+    }
+
     /**
      * Override to emit command lifecycle events to telemetry automatically.
      */
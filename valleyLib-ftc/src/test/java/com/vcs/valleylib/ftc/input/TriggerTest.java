@@ -2,12 +2,17 @@ package com.vcs.valleylib.ftc.input;
 
 import com.vcs.valleylib.core.command.Command;
 import com.vcs.valleylib.core.scheduler.CommandScheduler;
+import com.vcs.valleylib.core.time.LoopClock;
+import com.vcs.valleylib.core.time.VirtualTimeSource;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class TriggerTest {
 
@@ -54,6 +59,201 @@ class TriggerTest {
         assertEquals(1, command.initializeCalls);
     }
 
+    @Test
+    void bindingsUseTheManagersScheduler() {
+        AtomicBoolean state = new AtomicBoolean(false);
+        CommandScheduler scheduler = new CommandScheduler();
+        TriggerManager manager = new TriggerManager(scheduler);
+        CountingCommand command = new CountingCommand();
+
+        manager.bind(new Trigger(state::get).whileTrue(command));
+
+        state.set(true);
+        manager.poll();
+
+        assertTrue(scheduler.isScheduled(command));
+        assertFalse(CommandScheduler.getInstance().isScheduled(command));
+    }
+
+    @Test
+    void eachManagerTracksEdgesOfASharedTriggerSeparately() {
+        AtomicBoolean state = new AtomicBoolean(false);
+        CommandScheduler first = new CommandScheduler();
+        CommandScheduler second = new CommandScheduler();
+        TriggerManager firstManager = new TriggerManager(first);
+        TriggerManager secondManager = new TriggerManager(second);
+        CountingCommand command = new CountingCommand();
+        Trigger trigger = new Trigger(state::get).onTrue(command);
+        firstManager.bind(trigger);
+        secondManager.bind(trigger);
+
+        for (int press = 0; press < 2; press++) {
+            state.set(true);
+            firstManager.poll();
+            secondManager.poll();
+            first.cancel(command);
+            second.cancel(command);
+            state.set(false);
+            firstManager.poll();
+            secondManager.poll();
+        }
+
+        assertEquals(4, command.initializeCalls);
+    }
+
+    @Test
+    void conditionIsSampledOncePerPollForAllBindings() {
+        AtomicBoolean state = new AtomicBoolean(false);
+        int[] samples = new int[1];
+        CommandScheduler scheduler = new CommandScheduler();
+        TriggerManager manager = new TriggerManager(scheduler);
+        CountingCommand onTrue = new CountingCommand();
+        CountingCommand whileTrue = new CountingCommand();
+        CountingCommand toggle = new CountingCommand();
+
+        Trigger trigger = new Trigger(() -> {
+            samples[0]++;
+            return state.get();
+        }).onTrue(onTrue).whileTrue(whileTrue).toggleOnTrue(toggle);
+        manager.bind(trigger);
+        manager.bind(trigger);
+
+        manager.poll();
+        state.set(true);
+        manager.poll();
+
+        assertEquals(2, samples[0]);
+        assertEquals(1, onTrue.initializeCalls);
+        assertEquals(1, whileTrue.initializeCalls);
+        assertEquals(1, toggle.initializeCalls);
+    }
+
+    @Test
+    void sharedInputsAndSubexpressionsAreEvaluatedOnce() {
+        AtomicBoolean a = new AtomicBoolean(true);
+        AtomicBoolean b = new AtomicBoolean(false);
+        int[] samples = new int[2];
+        BooleanSupplier readA = () -> {
+            samples[0]++;
+            return a.get();
+        };
+        BooleanSupplier readB = () -> {
+            samples[1]++;
+            return b.get();
+        };
+        TriggerManager manager = new TriggerManager(new CommandScheduler());
+        Trigger buttonA = new Trigger(readA);
+        Trigger buttonB = new Trigger(readB);
+        CountingCommand both = new CountingCommand();
+        CountingCommand either = new CountingCommand();
+
+        manager.bindAll(
+                buttonA.and(buttonB).onTrue(both),
+                new Trigger(readB).and(readA).negate().onFalse(new CountingCommand()),
+                buttonA.or(buttonB).onTrue(either)
+        );
+        manager.poll();
+        b.set(true);
+        manager.poll();
+
+        assertEquals(2, samples[0]);
+        assertEquals(2, samples[1]);
+        assertEquals(1, both.initializeCalls);
+        assertEquals(1, either.initializeCalls);
+
+        TriggerGraph graph = new TriggerGraph();
+        graph.compile(buttonA.and(buttonB));
+        graph.compile(new Trigger(readA).and(readB));
+        assertEquals(3, graph.size());
+        // Operand order decides what is sampled first, so a swapped expression is a new node.
+        graph.compile(new Trigger(readB).and(readA));
+        assertEquals(4, graph.size());
+    }
+
+    @Test
+    void andAndOrSkipTheRightOperandWhenTheLeftDecides() {
+        AtomicBoolean present = new AtomicBoolean(false);
+        int[] reads = new int[1];
+        BooleanSupplier reading = () -> {
+            reads[0]++;
+            if (!present.get()) {
+                throw new IllegalStateException("device read while absent");
+            }
+            return true;
+        };
+        TriggerManager manager = new TriggerManager(new CommandScheduler());
+        CountingCommand guarded = new CountingCommand();
+        CountingCommand fallback = new CountingCommand();
+
+        manager.bindAll(
+                new Trigger(present::get).and(reading).onTrue(guarded),
+                new Trigger(present::get).negate().or(reading).onFalse(fallback)
+        );
+        manager.poll();
+        manager.poll();
+        assertEquals(0, reads[0]);
+
+        present.set(true);
+        manager.poll();
+
+        assertEquals(1, reads[0]);
+        assertEquals(1, guarded.initializeCalls);
+        assertEquals(0, fallback.initializeCalls);
+    }
+
+    @Test
+    void debouncedTriggerWaitsForTheConditionToSettle() {
+        AtomicBoolean state = new AtomicBoolean(true);
+        CommandScheduler scheduler = new CommandScheduler();
+        VirtualTimeSource time = new VirtualTimeSource();
+        scheduler.getClock().setTimeSource(time);
+        TriggerManager manager = new TriggerManager(scheduler);
+        CountingCommand command = new CountingCommand();
+
+        manager.bind(new Trigger(state::get).debounce(0.02).onTrue(command));
+
+        for (int i = 0; i < 3; i++) {
+            scheduler.run();
+            manager.poll();
+            time.advance(0.005);
+        }
+        assertEquals(0, command.initializeCalls);
+        time.advance(0.01);
+        scheduler.run();
+        manager.poll();
+        assertEquals(1, command.initializeCalls);
+    }
+
+    @Test
+    void pollAndRunShareOneLoopTimestamp() {
+        CommandScheduler scheduler = new CommandScheduler();
+        VirtualTimeSource time = new VirtualTimeSource();
+        scheduler.getClock().setTimeSource(time);
+        TriggerManager manager = new TriggerManager(scheduler);
+        long[] seen = new long[2];
+        Command command = new Command() {
+            @Override
+            public void initialize() {
+                seen[0] = LoopClock.current().getNanos();
+            }
+
+            @Override
+            public void execute() {
+                seen[1] = LoopClock.current().getNanos();
+            }
+        };
+        manager.bind(new Trigger(() -> true).onTrue(command));
+
+        long now = scheduler.getClock().sampleNanos();
+        time.advance(0.004);
+        manager.poll(now);
+        time.advance(0.004);
+        scheduler.run(now);
+
+        assertEquals(now, seen[0]);
+        assertEquals(now, seen[1]);
+    }
+
     private static class CountingCommand implements Command {
         int initializeCalls;
 